@@ -0,0 +1,30 @@
+package com.questify.bench;
+
+import com.questify.ui.RendererBenchmarks;
+import com.questify.util.AtomicFiles.Durability;
+
+import java.util.Arrays;
+
+// Benchmark entry point.
+// Usage: Benchmarks [filter] [sizes], e.g. "store.load 1000,100000". Filter "all" runs everything.
+// -Dbench.warmupMs, -Dbench.measureMs and -Dbench.fsync (none|file|dir) tune the run.
+public final class Benchmarks {
+	private static final int[] DEFAULT_SIZES = {1_000, 100_000, 1_000_000};
+
+	private Benchmarks() {}
+
+	public static void main(String[] args) throws Exception {
+		System.setProperty("java.awt.headless", "true");
+		String filter = args.length > 0 && !args[0].equals("all") ? args[0] : null;
+		int[] sizes = args.length > 1
+				? Arrays.stream(args[1].split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray()
+				: DEFAULT_SIZES;
+		Durability d = Durability.parse(System.getProperty("bench.fsync", "none"));
+
+		Harness h = new Harness(Long.getLong("bench.warmupMs", 1000), Long.getLong("bench.measureMs", 3000), filter);
+		Harness.header();
+		StoreBenchmarks.run(h, sizes, d);
+		ModelBenchmarks.run(h, sizes);
+		RendererBenchmarks.run(h, TaskData.generate(1_000, 42));
+	}
+}
@@ -0,0 +1,75 @@
+package com.questify.bench;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+
+// Minimal time-boxed benchmark runner: warm up, measure, and report time, throughput and allocation per op.
+public final class Harness {
+
+	// One benchmarked operation; returns the number of logical ops it performed (e.g. rows loaded).
+	public interface Op {
+		long run() throws Exception;
+	}
+
+	private static final com.sun.management.ThreadMXBean THREADS =
+			(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	private final long warmupMs;
+	private final long measureMs;
+	private final String filter;
+
+	Harness(long warmupMs, long measureMs, String filter) {
+		this.warmupMs = warmupMs;
+		this.measureMs = measureMs;
+		this.filter = filter;
+	}
+
+	static void header() {
+		System.out.printf(Locale.ROOT, "%-40s %10s %14s %14s %14s %8s%n",
+				"Benchmark", "Param", "ms/call", "ops/s", "alloc B/op", "gc ms");
+	}
+
+	public boolean enabled(String name) {
+		return filter == null || name.contains(filter);
+	}
+
+	// Run op repeatedly for the warmup then measurement windows and print one result row.
+	public void run(String name, String param, Op op) throws Exception {
+		if (!enabled(name)) return;
+
+		long end = System.nanoTime() + warmupMs * 1_000_000L;
+		do {
+			op.run();
+		} while (System.nanoTime() < end);
+
+		long tid = Thread.currentThread().getId();
+		long gcBefore = gcMillis();
+		long allocBefore = THREADS.getThreadAllocatedBytes(tid);
+		long calls = 0, ops = 0;
+		long start = System.nanoTime();
+		end = start + measureMs * 1_000_000L;
+		do {
+			ops += op.run();
+			calls++;
+		} while (System.nanoTime() < end);
+		long elapsed = System.nanoTime() - start;
+		long alloc = THREADS.getThreadAllocatedBytes(tid) - allocBefore;
+		long gc = gcMillis() - gcBefore;
+
+		System.out.printf(Locale.ROOT, "%-40s %10s %14.4f %14.1f %14.1f %8d%n",
+				name, param,
+				elapsed / 1e6 / calls,
+				ops / (elapsed / 1e9),
+				(double) alloc / Math.max(1, ops),
+				gc);
+	}
+
+	private static long gcMillis() {
+		long total = 0;
+		List<GarbageCollectorMXBean> beans = ManagementFactory.getGarbageCollectorMXBeans();
+		for (GarbageCollectorMXBean b : beans) total += Math.max(0, b.getCollectionTime());
+		return total;
+	}
+}
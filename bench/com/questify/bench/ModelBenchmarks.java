@@ -0,0 +1,141 @@
+package com.questify.bench;
+
+import com.questify.model.Task;
+import com.questify.ui.TaskListModel;
+import com.questify.ui.TaskTableModel;
+import com.questify.util.ConfigStore;
+import com.questify.util.Titles;
+import com.questify.util.TrigramIndex;
+import com.questify.util.AtomicFiles.Durability;
+
+import javax.swing.DefaultListModel;
+import java.nio.file.Path;
+import java.util.*;
+
+// List-model bulk operations, sorting, title formatting, search and ConfigStore access.
+final class ModelBenchmarks {
+	private ModelBenchmarks() {}
+
+	static void run(Harness h, int[] sizes) throws Exception {
+		for (int n : sizes) {
+			List<Task> tasks = TaskData.generate(n, 42);
+			String param = Integer.toString(n);
+
+			h.run("model.addAll.TaskListModel", param, () -> {
+				TaskListModel m = new TaskListModel();
+				m.addAll(tasks);
+				return n;
+			});
+
+			h.run("model.addAll.TaskTableModel", param, () -> {
+				TaskTableModel m = new TaskTableModel();
+				m.addAll(tasks);
+				return n;
+			});
+
+			h.run("model.addElement.DefaultListModel", param, () -> {
+				DefaultListModel<Task> m = new DefaultListModel<>();
+				for (Task t : tasks) m.addElement(t);
+				return n;
+			});
+
+			Set<String> half = new HashSet<>();
+			for (int i = 0; i < n; i += 2) half.add(tasks.get(i).getId());
+			h.run("model.removeAll.TaskListModel", param, () -> {
+				TaskListModel m = new TaskListModel();
+				m.addAll(tasks);
+				m.removeAll(half);
+				return n;
+			});
+
+			TaskListModel lookup = new TaskListModel();
+			lookup.addAll(tasks);
+			Random r = new Random(3);
+			h.run("model.indexOfId.TaskListModel", param, () -> {
+				return lookup.indexOfId(tasks.get(r.nextInt(n)).getId()) >= 0 ? 1 : 0;
+			});
+
+			TaskTableModel table = new TaskTableModel();
+			table.addAll(tasks);
+			h.run("model.indexOfId.TaskTableModel", param, () -> {
+				return table.indexOfId(tasks.get(r.nextInt(n)).getId()) >= 0 ? 1 : 0;
+			});
+			// Rows outside the view cache, as when scrolling through the list.
+			h.run("model.get.TaskTableModel", param, () -> {
+				return table.get(r.nextInt(n)).isDone() ? 1 : 0;
+			});
+			// The snapshot a full save takes on the EDT, then walks on the writer thread.
+			h.run("model.snapshot.TaskListModel", param, () -> lookup.toList().size());
+			h.run("model.snapshot.TaskTableModel", param, () -> {
+				int done = 0;
+				for (Task t : table.toList()) if (t.isDone()) done++;
+				return n;
+			});
+
+			// Re-sorting a list snapshot for the Sort box, as MainView does off the EDT.
+			Comparator<Task> byTitle = Comparator.comparing(Task::getTitle, String.CASE_INSENSITIVE_ORDER);
+			Comparator<Task> newest = Comparator.comparingLong(Task::getCreatedAt).reversed();
+			h.run("sort.title.parallel", param, () -> {
+				Task[] a = tasks.toArray(new Task[0]);
+				Arrays.parallelSort(a, byTitle);
+				return n;
+			});
+			h.run("sort.title.sequential", param, () -> {
+				Task[] a = tasks.toArray(new Task[0]);
+				Arrays.sort(a, byTitle);
+				return n;
+			});
+			h.run("sort.newest.parallel", param, () -> {
+				Task[] a = tasks.toArray(new Task[0]);
+				Arrays.parallelSort(a, newest);
+				return n;
+			});
+
+			h.run("title.format", param, () -> {
+				for (int i = 0; i < n; i++) Titles.format(tasks.get(i).getTitle());
+				return n;
+			});
+
+			h.run("search.build", param, () -> {
+				TrigramIndex ix = new TrigramIndex();
+				for (Task t : tasks) ix.put(t.getId(), t.getTitle());
+				return n;
+			});
+
+			TrigramIndex ix = new TrigramIndex();
+			for (Task t : tasks) ix.put(t.getId(), t.getTitle());
+			// A selective, a common and a two-letter query, capped as MainView caps them.
+			for (String q : new String[] {"water 1", "work", "ea"}) {
+				h.run("search.query[" + q + "]", param, () -> ix.search(q, 1000).size());
+			}
+			h.run("search.edit", param, () -> {
+				Task t = tasks.get(r.nextInt(n));
+				ix.put(t.getId(), t.getTitle() + " " + r.nextInt(100));
+				return 1;
+			});
+			h.run("search.scan", param, () -> {
+				int hits = 0;
+				for (Task t : tasks) {
+					if (Titles.searchKey(t.getTitle()).contains("water 1") && ++hits == 1000) break;
+				}
+				return hits;
+			});
+		}
+
+		Path dir = TaskData.tempDir("questify-bench-config");
+		try {
+			ConfigStore cfg = new ConfigStore(dir.resolve("config.properties"), Durability.NONE);
+			cfg.setXp(1);
+			cfg.flush();
+			h.run("config.getXp", "-", () -> cfg.getXp() >= 0 ? 1 : 0);
+			int[] xp = {0};
+			h.run("config.setXp", "-", () -> {
+				cfg.setXp(xp[0]++);
+				return 1;
+			});
+			cfg.flush();
+		} finally {
+			TaskData.deleteTree(dir);
+		}
+	}
+}
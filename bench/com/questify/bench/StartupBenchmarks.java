@@ -0,0 +1,74 @@
+package com.questify.bench;
+
+import com.questify.store.TextFileTaskStore;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// Cold-start timing: launches "Main --bench-startup" in a fresh JVM per run against a generated data
+// directory and reports the median and best of each startup phase. Separate from Benchmarks because
+// every sample needs a new JVM.
+// Usage: StartupBenchmarks [store kinds] [sizes] [runs], e.g. "text,indexed 1000,100000 5".
+public final class StartupBenchmarks {
+	private StartupBenchmarks() {}
+
+	public static void main(String[] args) throws Exception {
+		String[] kinds = (args.length > 0 ? args[0] : "text").split(",");
+		int[] sizes = args.length > 1
+				? Arrays.stream(args[1].split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray()
+				: new int[] {1_000, 100_000};
+		int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+		System.out.printf(Locale.ROOT, "%-28s %10s %10s %10s%n", "Phase", "Param", "median ms", "best ms");
+		for (String kind : kinds) {
+			for (int n : sizes) {
+				Path dir = TaskData.tempDir("questify-bench-startup");
+				try {
+					new TextFileTaskStore(dir.resolve("tasks.txt")).saveTasks(TaskData.generate(n, 42));
+					// The first launch seeds the chosen store from tasks.txt, so it is not measured.
+					launch(dir, kind);
+					Map<String, List<Long>> samples = new LinkedHashMap<>();
+					for (int r = 0; r < runs; r++) {
+						parse(launch(dir, kind), samples);
+					}
+					for (Map.Entry<String, List<Long>> e : samples.entrySet()) {
+						List<Long> v = e.getValue();
+						Collections.sort(v);
+						System.out.printf(Locale.ROOT, "%-28s %10s %10d %10d%n",
+								"startup." + kind + "." + e.getKey(), Integer.toString(n), v.get(v.size() / 2), v.get(0));
+					}
+				} finally {
+					TaskData.deleteTree(dir);
+				}
+			}
+		}
+	}
+
+	// Run one headless startup and return its trace line.
+	private static String launch(Path dir, String kind) throws IOException, InterruptedException {
+		String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+		Process p = new ProcessBuilder(java, "-Dquestify.store=" + kind,
+				"-cp", System.getProperty("java.class.path"),
+				"com.questify.Main", "--bench-startup", dir.toString())
+				.redirectError(ProcessBuilder.Redirect.INHERIT)
+				.start();
+		String out = new String(p.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+		if (p.waitFor() != 0) throw new IOException("startup run failed with exit code " + p.exitValue());
+		return out;
+	}
+
+	// Durations of each phase, or the offset of a point such as firstFrame, in milliseconds.
+	private static void parse(String line, Map<String, List<Long>> samples) {
+		String[] fields = line.split(" ");
+		for (int i = 1; i < fields.length; i++) {
+			int eq = fields[i].indexOf('=');
+			if (eq < 0) continue;
+			String v = fields[i].substring(eq + 1);
+			int plus = v.indexOf('+');
+			long ms = Long.parseLong(plus >= 0 ? v.substring(plus + 1) : v);
+			samples.computeIfAbsent(fields[i].substring(0, eq), k -> new ArrayList<>()).add(ms);
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package com.questify.bench;
+
+import com.questify.model.Task;
+import com.questify.store.*;
+import com.questify.util.AtomicFiles.Durability;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.*;
+
+// Load, stream, save and single-mutation cost for every TaskStore backend on the same generated data.
+final class StoreBenchmarks {
+
+	interface StoreFactory {
+		TaskStore open(Path dir) throws Exception;
+	}
+
+	// A backend under test and how to open it over a data directory.
+	static final class Backend {
+		final String name;
+		final StoreFactory factory;
+
+		Backend(String name, StoreFactory factory) {
+			this.name = name;
+			this.factory = factory;
+		}
+	}
+
+	static List<Backend> backends(Durability d) {
+		return List.of(
+				new Backend("text", dir -> new TextFileTaskStore(dir.resolve("tasks.txt"), d)),
+				new Backend("journal", dir -> new JournalTaskStore(dir.resolve("tasks.journal"), d)),
+				new Backend("binary", dir -> new BinaryTaskStore(dir.resolve("tasks.bin"), d)),
+				new Backend("mapped", dir -> new MappedTaskStore(dir.resolve("tasks.slots"), d)),
+				new Backend("indexed", dir -> new IndexedTaskStore(dir.resolve("tasks.db"), d)));
+	}
+
+	private StoreBenchmarks() {}
+
+	static void run(Harness h, int[] sizes, Durability d) throws Exception {
+		for (int n : sizes) {
+			List<Task> tasks = TaskData.generate(n, 42);
+			String param = Integer.toString(n);
+			for (Backend b : backends(d)) {
+				Path dir = TaskData.tempDir("questify-bench-" + b.name);
+				try {
+					TaskStore seed = b.factory.open(dir);
+					seed.saveTasks(tasks);
+					close(seed);
+
+					h.run("store.load." + b.name, param, () -> {
+						TaskStore s = b.factory.open(dir);
+						int size = s.loadTasks().size();
+						close(s);
+						return size;
+					});
+
+					h.run("store.stream." + b.name, param, () -> {
+						TaskStore s = b.factory.open(dir);
+						long[] count = {0};
+						s.forEachTask(t -> count[0]++);
+						close(s);
+						return count[0];
+					});
+
+					TaskStore s = b.factory.open(dir);
+					s.loadTasks();
+					Random r = new Random(7);
+
+					// Full-snapshot save after one task changed, as MainView's scheduler issues it.
+					h.run("store.save." + b.name, param, () -> {
+						Task t = tasks.get(r.nextInt(tasks.size()));
+						t.setDone(!t.isDone());
+						s.saveTasks(tasks);
+						return 1;
+					});
+
+					// Cheapest way each backend can persist one toggled task.
+					h.run("store.mutate." + b.name, param, () -> {
+						Task t = tasks.get(r.nextInt(tasks.size()));
+						t.setDone(!t.isDone());
+						mutateOne(s, tasks, t);
+						return 1;
+					});
+					close(s);
+				} finally {
+					TaskData.deleteTree(dir);
+				}
+			}
+
+			// No title repeats, so the binary store's title table holds one entry per task.
+			List<Task> unique = TaskData.generateUnique(n, 42);
+			Path dir = TaskData.tempDir("questify-bench-binary-unique");
+			try {
+				BinaryTaskStore s = new BinaryTaskStore(dir.resolve("tasks.bin"), d);
+				h.run("store.save.binary.unique", param, () -> {
+					s.saveTasks(unique);
+					return 1;
+				});
+				h.run("store.load.binary.unique", param, () -> new BinaryTaskStore(dir.resolve("tasks.bin"), d).loadTasks().size());
+			} finally {
+				TaskData.deleteTree(dir);
+			}
+		}
+	}
+
+	private static void mutateOne(TaskStore s, List<Task> all, Task changed) throws Exception {
+		if (s.supportsRecordUpdates()) {
+			s.update(changed);
+		} else {
+			s.saveTasks(all);
+		}
+	}
+
+	private static void close(TaskStore s) throws Exception {
+		if (s instanceof Closeable) ((Closeable) s).close();
+	}
+}
@@ -0,0 +1,65 @@
+package com.questify.bench;
+
+import com.questify.model.Task;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+
+// Synthetic task data shaped like real use: short habit-style titles, about a third completed.
+final class TaskData {
+	private static final String[] WORDS = {
+		"drink", "water", "workout", "read", "chapter", "call", "mom", "pay", "rent", "walk",
+		"dog", "stretch", "journal", "meditate", "clean", "kitchen", "study", "java", "email", "plan"
+	};
+
+	// Fixed so every run generates the same timestamps.
+	private static final long NOW = 1_760_000_000_000L;
+	private static final long YEAR_MS = 365L * 24 * 60 * 60 * 1000;
+
+	private TaskData() {}
+
+	static List<Task> generate(int n, long seed) {
+		Random r = new Random(seed);
+		List<Task> out = new ArrayList<>(n);
+		for (int i = 0; i < n; i++) {
+			int words = 1 + r.nextInt(4);
+			StringBuilder sb = new StringBuilder();
+			for (int w = 0; w < words; w++) {
+				if (w > 0) sb.append(' ');
+				sb.append(WORDS[r.nextInt(WORDS.length)]);
+			}
+			if (r.nextInt(4) == 0) sb.append(' ').append(i);
+			String title = Character.toUpperCase(sb.charAt(0)) + sb.substring(1);
+			// Created over the last year; completed some time after that.
+			long created = NOW - (long) (r.nextDouble() * YEAR_MS);
+			boolean done = r.nextInt(3) == 0;
+			long completed = done ? created + (long) (r.nextDouble() * (NOW - created)) : 0;
+			out.add(new Task(new UUID(r.nextLong(), r.nextLong()).toString(), title, done, created, completed));
+		}
+		return out;
+	}
+
+	// As generate, but every title is distinct, the worst case for stores that share repeated titles.
+	static List<Task> generateUnique(int n, long seed) {
+		List<Task> out = generate(n, seed);
+		for (int i = 0; i < n; i++) {
+			Task t = out.get(i);
+			t.setTitle(t.getTitle() + " #" + i);
+		}
+		return out;
+	}
+
+	static Path tempDir(String prefix) throws IOException {
+		Path dir = Files.createTempDirectory(prefix);
+		dir.toFile().deleteOnExit();
+		return dir;
+	}
+
+	static void deleteTree(Path dir) throws IOException {
+		if (!Files.exists(dir)) return;
+		try (var walk = Files.walk(dir)) {
+			walk.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package com.questify.ui;
+
+import com.questify.bench.Harness;
+import com.questify.model.Task;
+
+import javax.swing.JList;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+// Paint cost of TaskCellRenderer, off-screen; lives in the ui package to reach the package-private renderer.
+public final class RendererBenchmarks {
+	private RendererBenchmarks() {}
+
+	// Paints one screenful of rows per op, like a scroll step through the list.
+	public static void run(Harness h, List<Task> tasks) throws Exception {
+		TaskCellRenderer renderer = new TaskCellRenderer();
+		JList<Task> list = new JList<>();
+		int rowH = renderer.cellHeight(list);
+		int rowsPerScreen = 20;
+		BufferedImage img = new BufferedImage(480, rowH, BufferedImage.TYPE_INT_ARGB);
+		int[] offset = {0};
+
+		h.run("render.screen", Integer.toString(tasks.size()), () -> {
+			Graphics2D g = img.createGraphics();
+			try {
+				for (int i = 0; i < rowsPerScreen; i++) {
+					int idx = (offset[0] + i) % tasks.size();
+					Component c = renderer.getListCellRendererComponent(list, tasks.get(idx), idx, i == 0, false);
+					c.setBounds(0, 0, img.getWidth(), rowH);
+					c.paint(g);
+				}
+			} finally {
+				g.dispose();
+			}
+			offset[0] += rowsPerScreen;
+			return rowsPerScreen;
+		});
+	}
+}
@@ -1,12 +1,21 @@
 package com.questify;
 
+import com.questify.diag.DiagnosticsEventQueue;
+import com.questify.diag.EdtWatchdog;
+import com.questify.model.Task;
 import com.questify.ui.*;
 import com.questify.store.*;
 import com.questify.util.ConfigStore;
+import com.questify.util.StartupTrace;
+import com.questify.util.AtomicFiles.Durability;
 
 import java.awt.Dimension;
 import java.awt.Font;
+import java.io.IOException;
 import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.*;
+import javax.swing.ImageIcon;
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 import javax.swing.plaf.FontUIResource;
@@ -19,40 +28,222 @@ public class Main {
 	public static final Dimension PHONE_SIZE_SMALL = new Dimension(480, 900);
     public static final Dimension PHONE_SIZE_HIRES = new Dimension(1080, 1920);
     
+    // Shortest time the splash is shown, so a fast start does not just flash it.
+    public static final int DEFAULT_SPLASH_MS = 500;
+    
+    // EDT busy time after which a stall is recorded.
+    public static final long DEFAULT_EDT_STALL_MS = 200;
+    
     // Force privacy dialog for testing when true.
     public static final boolean ALWAYS_SHOW_PRIVACY_FOR_TESTING = true;
 	
+	// Work started at entry that runs in parallel with building the splash.
+	private static final class Startup {
+		final ExecutorService pool = Executors.newFixedThreadPool(3, r -> {
+			Thread t = new Thread(r, "questify-startup");
+			t.setDaemon(true);
+			return t;
+		});
+		ConfigStore cfg;
+		CompletableFuture<Void> cfgReady;
+		CompletableFuture<TaskStore> storeReady;
+		CompletableFuture<List<Task>> tasksReady;
+		CompletableFuture<ImageIcon> icon;
+		HabitStore habits;
+		CompletableFuture<XpLedger> xpReady;
+		StatsStore stats;
+	}
+	
 	public static void main(String[] args) {
-		
-		// Set a consistent global font for Swing UI
-		setGlobalFont(new Font("SansSerif", Font.PLAIN, 16));
+		if (args.length == 2 && args[0].equals("--bench-startup")) {
+			benchStartup(Paths.get(args[1]));
+			return;
+		}
 		
 		Path appDir = Paths.get(System.getProperty("user.home"), ".questify");
-		Path dataFile = appDir.resolve("tasks.txt");
-		Path cfgFile = appDir.resolve("config.properties");
+		StartupTrace.start(appDir.resolve("startup.log"));
+		Startup st = beginStartup(appDir);
 		
-		ConfigStore cfg = new ConfigStore(cfgFile);
-		TextFileTaskStore store = new TextFileTaskStore(dataFile);
+		// -Dquestify.edtStallMs sets how long the EDT may be busy before a JFR recording gets an
+		// EdtStallEvent with its stack; 0 turns the watchdog off.
+		EdtWatchdog.start(Long.getLong("questify.edtStallMs", DEFAULT_EDT_STALL_MS));
+		// -Dquestify.diagnostics=true times every EDT event for the in-app overlay (F12).
+		if (Boolean.getBoolean("questify.diagnostics")) DiagnosticsEventQueue.install();
+		
+		// Set a consistent global font for Swing UI; the stages above run meanwhile.
+		StartupTrace.run("font", () -> setGlobalFont(new Font("SansSerif", Font.PLAIN, 16)));
+		
+		// -Dquestify.splashMs sets how long the splash stays up at least, even if startup is faster.
+		int splashMs = Integer.getInteger("questify.splashMs", DEFAULT_SPLASH_MS);
 		
 		// Run UI flow on the Event Dispatch Thread.
 		SwingUtilities.invokeLater(() -> {
-			SplashScreen splash = new SplashScreen(3000, Main.PHONE_SIZE_SMALL);
-			splash.showAndWait();
+			StartupTrace.run("splash", () -> {
+				SplashScreen splash = new SplashScreen(splashMs, Main.PHONE_SIZE_SMALL, st.icon);
+				splash.addStage("Reading settings", st.cfgReady);
+				// Tasks are read from the opened store, so this stage also covers storeReady.
+				splash.addStage("Loading tasks", st.tasksReady);
+				splash.addStage("Reading XP", st.xpReady);
+				splash.showAndWait();
+			});
+			st.pool.shutdown();
 			
-			if (!cfg.isPrivacyAccepted()) {
-				PrivacyDialog pd = new PrivacyDialog(cfg, Main.PHONE_SIZE_SMALL);
-				boolean ok = pd.showModal(null);
-				if (!ok) {
-					System.exit(0);
-				}
+			if (!st.cfg.isPrivacyAccepted()) {
+				// Timed on its own, since most of it is spent waiting on the user.
+				StartupTrace.run("privacy", () -> {
+					PrivacyDialog pd = new PrivacyDialog(st.cfg, Main.PHONE_SIZE_SMALL);
+					boolean ok = pd.showModal(null);
+					if (!ok) {
+						System.exit(0);
+					}
+				});
 			}
 			
-			MainView main = new MainView(store, PHONE_SIZE_SMALL, cfg);
-			main.setVisible(true);
+			long saveDelayMs = Long.getLong("questify.saveDelayMs", MainView.DEFAULT_SAVE_DELAY_MS);
+			// The splash waited for the store and the ledger, so these joins return at once.
+			XpLedger ledger = st.xpReady.join();
+			if (ledger != null) migrateXp(st.cfg, ledger);
+			StartupTrace.run("mainview", () -> {
+				MainView main = new MainView(st.storeReady.join(), PHONE_SIZE_SMALL, st.cfg, saveDelayMs, st.tasksReady, st.habits, ledger, st.stats);
+				main.setVisible(true);
+			});
 		});
 
 	}
 	
+	// Open the store and read its tasks, parse the config and decode the splash icon, each on a startup thread.
+	private static Startup beginStartup(Path appDir) {
+		Path dataFile = appDir.resolve("tasks.txt");
+		Path cfgFile = appDir.resolve("config.properties");
+		
+		// -Dquestify.fsync=none|file|dir trades save latency for crash durability.
+		Durability durability = Durability.parse(System.getProperty("questify.fsync"));
+		
+		Startup st = new Startup();
+		st.cfg = new ConfigStore(cfgFile, durability);
+		st.habits = new HabitStore(appDir.resolve("habits.txt"), durability);
+		st.stats = new StatsStore(appDir.resolve("stats.bin"), durability);
+		st.cfgReady = CompletableFuture.runAsync(() -> StartupTrace.run("config.load", st.cfg::preload), st.pool);
+		st.storeReady = CompletableFuture.supplyAsync(StartupTrace.timed("store.open", () -> openStore(appDir, dataFile, durability)), st.pool);
+		st.tasksReady = st.storeReady.thenApplyAsync(store -> StartupTrace.call("tasks.load", () -> preloadTasks(store)), st.pool);
+		st.xpReady = CompletableFuture.supplyAsync(StartupTrace.timed("xp.load", () -> openLedger(appDir, durability)), st.pool);
+		st.icon = CompletableFuture.supplyAsync(StartupTrace.timed("icon", () -> SplashScreen.loadIcon(appDir.resolve("cache"))), st.pool);
+		return st;
+	}
+	
+	// Headless run of the startup path against an existing data directory, for StartupBenchmarks:
+	// the same stages as a real launch, with no splash or privacy dialog, and the first screen of the
+	// active list painted off-screen in place of the window. Prints the trace line and exits.
+	private static void benchStartup(Path appDir) {
+		System.setProperty("java.awt.headless", "true");
+		StartupTrace.start(null);
+		Startup st = beginStartup(appDir);
+		StartupTrace.run("font", () -> setGlobalFont(new Font("SansSerif", Font.PLAIN, 16)));
+		try {
+			// What the splash waits for; the icon is included so its time is always logged.
+			StartupTrace.run("splash", () -> CompletableFuture.allOf(st.cfgReady, st.tasksReady, st.xpReady, st.icon).handle((r, err) -> null).join());
+			st.pool.shutdown();
+			TaskStore store = st.storeReady.join();
+			List<Task> tasks = st.tasksReady.join();
+			SwingUtilities.invokeAndWait(() -> {
+				StartupTrace.run("mainview", () -> MainView.paintFirstScreen(tasks, PHONE_SIZE_SMALL));
+				StartupTrace.mark("firstFrame");
+			});
+			System.out.println(StartupTrace.finish("interactive"));
+			if (store instanceof java.io.Closeable) ((java.io.Closeable) store).close();
+		} catch (Exception e) {
+			e.printStackTrace();
+			System.exit(1);
+		}
+		System.exit(0);
+	}
+	
+	// Pick the task backend from -Dquestify.store (text, journal, binary, mapped or indexed), carrying over tasks.txt.
+	private static TaskStore openStore(Path appDir, Path dataFile, Durability durability) {
+		String kind = System.getProperty("questify.store", "text");
+		if (kind.equals("journal")) {
+			Path journal = appDir.resolve("tasks.journal");
+			JournalTaskStore store = new JournalTaskStore(journal, durability);
+			seedFromText(store, journal, dataFile);
+			return store;
+		}
+		if (kind.equals("mapped")) {
+			Path slots = appDir.resolve("tasks.slots");
+			MappedTaskStore store = new MappedTaskStore(slots, durability);
+			seedFromText(store, slots, dataFile);
+			return store;
+		}
+		if (kind.equals("indexed")) {
+			Path db = appDir.resolve("tasks.db");
+			IndexedTaskStore store = new IndexedTaskStore(db, durability);
+			seedFromText(store, db, dataFile);
+			return store;
+		}
+		if (kind.equals("binary")) {
+			BinaryTaskStore store = new BinaryTaskStore(appDir.resolve("tasks.bin"), durability);
+			try {
+				store.migrateFrom(dataFile);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			return store;
+		}
+		TextFileTaskStore store = new TextFileTaskStore(dataFile, durability);
+		// Older builds renamed tasks.txt away when they moved it into tasks.bin; bring those tasks back.
+		Path bin = appDir.resolve("tasks.bin");
+		if (Files.exists(bin) && Files.exists(dataFile.resolveSibling(dataFile.getFileName() + ".migrated"))) {
+			seedFrom(store, dataFile, new BinaryTaskStore(bin));
+		}
+		return store;
+	}
+	
+	// Read the XP ledger on a startup thread; if it cannot be read, XP stays in config.properties.
+	private static XpLedger openLedger(Path appDir, Durability durability) {
+		XpLedger ledger = new XpLedger(appDir.resolve("xp.log"), durability);
+		try {
+			ledger.load();
+			return ledger;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	// XP used to be a single number in config.properties: record it as the ledger's first entry, once,
+	// and drop it from the config after the ledger has it on disk.
+	private static void migrateXp(ConfigStore cfg, XpLedger ledger) {
+		int xp = cfg.getXp();
+		if (xp != 0 && ledger.entries() == 0) {
+			ledger.record(null, xp);
+			if (!ledger.flush()) return;
+		}
+		cfg.removeXp();
+	}
+
+	// Runs on a startup thread; a failure reaches MainView, which reports it like any load error.
+	private static List<Task> preloadTasks(TaskStore store) {
+		try {
+			return MainView.preloadTasks(store);
+		} catch (Exception e) {
+			throw new CompletionException(e);
+		}
+	}
+	
+	// Copy tasks.txt into a freshly created store so switching backends keeps existing tasks.
+	private static void seedFromText(TaskStore store, Path target, Path dataFile) {
+		if (!Files.exists(dataFile)) return;
+		seedFrom(store, target, new TextFileTaskStore(dataFile));
+	}
+	
+	private static void seedFrom(TaskStore store, Path target, TaskStore source) {
+		if (Files.exists(target)) return;
+		try {
+			store.saveTasks(source.loadTasks());
+		} catch (Exception e) {
+			e.printStackTrace();
+		}
+	}
+	
 	// Apply a single font to all UIManager font defaults.
 	private static void setGlobalFont(Font font) {
         FontUIResource fr = new FontUIResource(font);
@@ -0,0 +1,20 @@
+package com.questify.diag;
+
+import jdk.jfr.*;
+
+// JFR event for one read or write of config.properties.
+@Name("com.questify.ConfigIo")
+@Label("Config I/O")
+@Category({"Questify", "Storage"})
+@Description("ConfigStore loading or saving its properties file")
+public final class ConfigIoEvent extends Event {
+	@Label("Operation")
+	public String operation;
+
+	@Label("Path")
+	public String path;
+
+	@Label("Bytes")
+	@DataAmount
+	public long bytes;
+}
@@ -0,0 +1,53 @@
+package com.questify.diag;
+
+import java.awt.*;
+import java.awt.event.InputEvent;
+
+// Event queue pushed in diagnostics mode to time every event the EDT dispatches. It keeps two
+// histograms: how long each dispatch ran, and for input events how long after the OS produced
+// them they were handled, which is the lag a user feels. EDT-only like the events it measures.
+public final class DiagnosticsEventQueue extends EventQueue {
+	private static DiagnosticsEventQueue installed;
+
+	private final LatencyHistogram dispatch = new LatencyHistogram();
+	private final LatencyHistogram inputLag = new LatencyHistogram();
+	private long dispatched = 0;
+
+	private DiagnosticsEventQueue() {}
+
+	// Push the queue in front of the system queue; later calls return the same instance.
+	public static synchronized DiagnosticsEventQueue install() {
+		if (installed == null) {
+			installed = new DiagnosticsEventQueue();
+			Toolkit.getDefaultToolkit().getSystemEventQueue().push(installed);
+		}
+		return installed;
+	}
+
+	// The installed queue, or null outside diagnostics mode.
+	public static synchronized DiagnosticsEventQueue installed() {
+		return installed;
+	}
+
+	@Override
+	protected void dispatchEvent(AWTEvent e) {
+		long seq = ++dispatched;
+		long start = System.nanoTime();
+		super.dispatchEvent(e);
+		// An event that ran a modal loop dispatched others inside it; its time is mostly the user's.
+		if (dispatched != seq) return;
+		dispatch.record(System.nanoTime() - start);
+		if (e instanceof InputEvent) {
+			long when = ((InputEvent) e).getWhen(); // wall clock, as set by the toolkit
+			if (when > 0) inputLag.record(Math.max(0, System.currentTimeMillis() - when) * 1_000_000L);
+		}
+	}
+
+	public LatencyHistogram dispatchTimes() {
+		return dispatch;
+	}
+
+	public LatencyHistogram inputLag() {
+		return inputLag;
+	}
+}
@@ -0,0 +1,20 @@
+package com.questify.diag;
+
+import jdk.jfr.*;
+
+// JFR event for a stretch in which the EDT ran no new events; committed by the watchdog thread,
+// so the stack recorded is the EDT's, captured as text, not the committing thread's.
+@Name("com.questify.EdtStall")
+@Label("EDT Stall")
+@Category({"Questify", "UI"})
+@Description("The event dispatch thread was busy longer than the watchdog threshold")
+@StackTrace(false)
+public final class EdtStallEvent extends Event {
+	@Label("Threshold")
+	@Timespan(Timespan.MILLISECONDS)
+	public long thresholdMs;
+
+	@Label("EDT Stack")
+	@Description("Where the EDT was once the stall passed the threshold")
+	public String stack;
+}
@@ -0,0 +1,64 @@
+package com.questify.diag;
+
+import java.awt.EventQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// Posts a no-op to the EDT every POLL_MS and waits for it to run. If it has not run within the
+// threshold, the EDT's stack is taken right then, and once the EDT catches up the stall is
+// recorded as an EdtStallEvent covering the whole wait. Nothing is posted unless a JFR recording
+// has the event enabled.
+public final class EdtWatchdog {
+	private static final long POLL_MS = 100;
+	private static final int MAX_FRAMES = 48;
+
+	private final long thresholdMs;
+	private volatile Thread edt;
+
+	private EdtWatchdog(long thresholdMs) {
+		this.thresholdMs = thresholdMs;
+	}
+
+	// Start watching on a daemon thread; a threshold of 0 or less turns the watchdog off.
+	public static void start(long thresholdMs) {
+		if (thresholdMs <= 0) return;
+		EdtWatchdog w = new EdtWatchdog(thresholdMs);
+		EventQueue.invokeLater(() -> w.edt = Thread.currentThread());
+		Thread t = new Thread(w::run, "questify-edt-watchdog");
+		t.setDaemon(true);
+		t.start();
+	}
+
+	private void run() {
+		try {
+			while (true) {
+				Thread.sleep(POLL_MS);
+				EdtStallEvent event = new EdtStallEvent();
+				if (!event.isEnabled()) continue;
+				CountDownLatch ran = new CountDownLatch(1);
+				event.begin();
+				EventQueue.invokeLater(ran::countDown);
+				if (ran.await(thresholdMs, TimeUnit.MILLISECONDS)) continue;
+				// The EDT may change the shape of the stall while we wait, but this is where it was stuck.
+				Thread t = edt;
+				String stack = t != null ? format(t.getStackTrace()) : null;
+				ran.await();
+				event.end();
+				event.thresholdMs = thresholdMs;
+				event.stack = stack;
+				event.commit();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static String format(StackTraceElement[] frames) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < frames.length && i < MAX_FRAMES; i++) {
+			sb.append("at ").append(frames[i]).append('\n');
+		}
+		if (frames.length > MAX_FRAMES) sb.append("... ").append(frames.length - MAX_FRAMES).append(" more\n");
+		return sb.toString();
+	}
+}
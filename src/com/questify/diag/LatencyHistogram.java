@@ -0,0 +1,63 @@
+package com.questify.diag;
+
+// Log-linear histogram of durations in nanoseconds, in the style of HdrHistogram: each power of two
+// is split into 32 linear sub-buckets, so recording is O(1) into a fixed array and any percentile
+// read back is within about 3% of the true value. Not thread-safe; callers record and read on one thread.
+public final class LatencyHistogram {
+	private static final int SUB_BITS = 6;
+	private static final int SUB = 1 << SUB_BITS; // values below this get a bucket each
+	private static final int HALF = SUB / 2;      // sub-buckets per power of two above that
+
+	private final long[] counts = new long[SUB + (64 - SUB_BITS) * HALF];
+	private long total;
+	private long max;
+
+	public void record(long ns) {
+		if (ns < 0) ns = 0;
+		counts[index(ns)]++;
+		total++;
+		if (ns > max) max = ns;
+	}
+
+	public void reset() {
+		java.util.Arrays.fill(counts, 0);
+		total = 0;
+		max = 0;
+	}
+
+	public long count() {
+		return total;
+	}
+
+	public long max() {
+		return max;
+	}
+
+	// Smallest recorded value that p percent of samples are at or below, in nanoseconds; 0 when empty.
+	public long percentile(double p) {
+		if (total == 0) return 0;
+		long rank = Math.max(1, (long) Math.ceil(p / 100.0 * total));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank) return Math.min(max, upperBound(i));
+		}
+		return max;
+	}
+
+	// Values below SUB map to themselves; above, the top SUB_BITS bits pick the sub-bucket.
+	private static int index(long v) {
+		if (v < SUB) return (int) v;
+		int shift = 63 - Long.numberOfLeadingZeros(v) - (SUB_BITS - 1);
+		int sub = (int) (v >>> shift); // in [HALF, SUB)
+		return SUB + (shift - 1) * HALF + (sub - HALF);
+	}
+
+	private static long upperBound(int index) {
+		if (index < SUB) return index;
+		int k = index - SUB;
+		int shift = k / HALF + 1;
+		long sub = k % HALF + HALF;
+		return ((sub + 1) << shift) - 1;
+	}
+}
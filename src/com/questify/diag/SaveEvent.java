@@ -0,0 +1,20 @@
+package com.questify.diag;
+
+import jdk.jfr.*;
+
+// JFR event for one write run by the SaveScheduler thread.
+@Name("com.questify.Save")
+@Label("Task Save")
+@Category({"Questify", "Storage"})
+@Description("A debounced snapshot save or a per-record write on the task writer thread")
+public final class SaveEvent extends Event {
+	@Label("Kind")
+	@Description("snapshot or record")
+	public String kind;
+
+	@Label("Store")
+	public String store;
+
+	@Label("Records")
+	public int records;
+}
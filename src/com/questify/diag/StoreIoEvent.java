@@ -0,0 +1,26 @@
+package com.questify.diag;
+
+import jdk.jfr.*;
+
+// JFR event for one full read or write of a task file.
+@Name("com.questify.StoreIo")
+@Label("Task Store I/O")
+@Category({"Questify", "Storage"})
+@Description("A task store reading or writing its whole file")
+public final class StoreIoEvent extends Event {
+	@Label("Operation")
+	public String operation;
+
+	@Label("Store")
+	public String store;
+
+	@Label("Path")
+	public String path;
+
+	@Label("Bytes")
+	@DataAmount
+	public long bytes;
+
+	@Label("Records")
+	public int records;
+}
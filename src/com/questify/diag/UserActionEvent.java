@@ -0,0 +1,14 @@
+package com.questify.diag;
+
+import jdk.jfr.*;
+
+// JFR event for the EDT work of one MainView action, excluding time spent in its dialogs.
+@Name("com.questify.UserAction")
+@Label("User Action")
+@Category({"Questify", "UI"})
+@Description("EDT time taken by an add, edit, toggle or delete")
+@StackTrace(false)
+public final class UserActionEvent extends Event {
+	@Label("Action")
+	public String action;
+}
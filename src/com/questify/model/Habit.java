@@ -0,0 +1,83 @@
+package com.questify.model;
+
+import java.util.Arrays;
+
+// A recurring task. Which days it is due comes from its Recurrence; the only per-day state kept is
+// which days it was done, one bit per day since it started, so a year of a daily habit is 46 bytes.
+public class Habit {
+	private final String id;
+	private String title;
+	private Recurrence rule;
+	private final long startDay;  // epoch day of the first possible occurrence
+	private final long createdAt; // epoch milliseconds
+	private long[] done;          // bit k: done on startDay + k
+
+	public Habit(String id, String title, Recurrence rule, long startDay, long createdAt) {
+		this(id, title, rule, startDay, createdAt, new long[0]);
+	}
+
+	public Habit(String id, String title, Recurrence rule, long startDay, long createdAt, long[] done) {
+		this.id = id;
+		this.title = title;
+		this.rule = rule;
+		this.startDay = startDay;
+		this.createdAt = createdAt;
+		this.done = done;
+	}
+
+	public String getId() { return id; }
+	public String getTitle() { return title; }
+	public Recurrence getRule() { return rule; }
+	public long getStartDay() { return startDay; }
+	public long getCreatedAt() { return createdAt; }
+
+	public void setTitle(String title) { this.title = title; }
+
+	// Completions are kept, including any on days the new rule no longer has.
+	public void setRule(Recurrence rule) { this.rule = rule; }
+
+	public boolean isDueOn(long day) {
+		return rule.occursOn(startDay, day);
+	}
+
+	public boolean isDoneOn(long day) {
+		long k = day - startDay;
+		if (k < 0 || k >= (long) done.length << 6) return false;
+		return (done[(int) (k >>> 6)] & (1L << k)) != 0;
+	}
+
+	// Mark day done or not; returns false if it already was. Days before the start cannot be marked.
+	public boolean setDoneOn(long day, boolean value) {
+		if (day < startDay) throw new IllegalArgumentException("Day " + day + " is before the habit started");
+		if (isDoneOn(day) == value) return false;
+		long k = day - startDay;
+		int w = (int) (k >>> 6);
+		if (w >= done.length) done = Arrays.copyOf(done, Math.max(w + 1, done.length * 2));
+		done[w] ^= 1L << k;
+		return true;
+	}
+
+	// Number of days marked done.
+	public int completions() {
+		int n = 0;
+		for (long w : done) n += Long.bitCount(w);
+		return n;
+	}
+
+	// The completion bitmap as stored: word 0 holds the first 64 days, trailing empty words dropped.
+	public long[] completionBits() {
+		int n = done.length;
+		while (n > 0 && done[n - 1] == 0) n--;
+		return Arrays.copyOf(done, n);
+	}
+
+	// Detached copy, e.g. for handing to a background writer.
+	public Habit copy() {
+		return new Habit(id, title, rule, startDay, createdAt, completionBits());
+	}
+
+	@Override
+	public String toString() {
+		return title;
+	}
+}
@@ -0,0 +1,200 @@
+package com.questify.model;
+
+import java.time.DayOfWeek;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.LongStream;
+
+// When a habit is due: every day, on chosen weekdays, or every N days counted from its start day.
+// Occurrences are worked out from the rule when asked for rather than stored, so a habit costs the
+// same however long it has been running. Days are epoch days (LocalDate.toEpochDay). Immutable.
+public final class Recurrence {
+	public enum Kind { DAILY, WEEKLY, EVERY_N_DAYS }
+
+	private static final String[] DAY_NAMES = {"mon", "tue", "wed", "thu", "fri", "sat", "sun"};
+	private static final int ALL_DAYS = 0x7F;
+	private static final int WEEKDAYS = 0x1F;
+
+	private static final Recurrence DAILY = new Recurrence(Kind.DAILY, 1, ALL_DAYS);
+
+	private final Kind kind;
+	private final int interval; // days between occurrences; 1 unless EVERY_N_DAYS
+	private final int weekdays; // bit 0 Monday .. bit 6 Sunday; all set unless WEEKLY
+
+	private Recurrence(Kind kind, int interval, int weekdays) {
+		this.kind = kind;
+		this.interval = interval;
+		this.weekdays = weekdays;
+	}
+
+	public static Recurrence daily() {
+		return DAILY;
+	}
+
+	// Due on the weekdays set in the mask (see bit).
+	public static Recurrence weekly(int weekdays) {
+		weekdays &= ALL_DAYS;
+		if (weekdays == 0) throw new IllegalArgumentException("No weekday chosen");
+		return weekdays == ALL_DAYS ? DAILY : new Recurrence(Kind.WEEKLY, 1, weekdays);
+	}
+
+	public static Recurrence everyNDays(int n) {
+		if (n < 1) throw new IllegalArgumentException("Interval must be at least one day: " + n);
+		return n == 1 ? DAILY : new Recurrence(Kind.EVERY_N_DAYS, n, ALL_DAYS);
+	}
+
+	// Mask bit of a weekday, for weekly().
+	public static int bit(DayOfWeek d) {
+		return 1 << (d.getValue() - 1);
+	}
+
+	public Kind getKind() { return kind; }
+	public int getInterval() { return interval; }
+	public int getWeekdays() { return weekdays; }
+
+	// Due on day, for a habit that started on start.
+	public boolean occursOn(long start, long day) {
+		if (day < start) return false;
+		switch (kind) {
+			case WEEKLY:
+				return (weekdays & (1 << weekday(day))) != 0;
+			case EVERY_N_DAYS:
+				return (day - start) % interval == 0;
+			default:
+				return true;
+		}
+	}
+
+	// First occurrence on or after day.
+	public long next(long start, long day) {
+		long d = Math.max(day, start);
+		switch (kind) {
+			case WEEKLY:
+				while ((weekdays & (1 << weekday(d))) == 0) d++;
+				return d;
+			case EVERY_N_DAYS:
+				long r = (d - start) % interval;
+				return r == 0 ? d : d + interval - r;
+			default:
+				return d;
+		}
+	}
+
+	// Last occurrence on or before day, or start - 1 if there is none.
+	public long previous(long start, long day) {
+		if (day < start) return start - 1;
+		switch (kind) {
+			case WEEKLY:
+				for (long d = day; d >= start; d--) {
+					if ((weekdays & (1 << weekday(d))) != 0) return d;
+				}
+				return start - 1;
+			case EVERY_N_DAYS:
+				return day - (day - start) % interval;
+			default:
+				return day;
+		}
+	}
+
+	// Occurrences in [from, to), generated as they are consumed.
+	public LongStream occurrences(long start, long from, long to) {
+		return LongStream.iterate(next(start, from), d -> d < to, d -> next(start, d + 1));
+	}
+
+	// Number of occurrences in [from, to), without walking them.
+	public long count(long start, long from, long to) {
+		from = Math.max(from, start);
+		if (to <= from) return 0;
+		switch (kind) {
+			case WEEKLY: {
+				long weeks = (to - from) / 7;
+				long n = weeks * Integer.bitCount(weekdays);
+				for (long d = from + weeks * 7; d < to; d++) {
+					if ((weekdays & (1 << weekday(d))) != 0) n++;
+				}
+				return n;
+			}
+			case EVERY_N_DAYS: {
+				long first = next(start, from);
+				return first >= to ? 0 : (to - 1 - first) / interval + 1;
+			}
+			default:
+				return to - from;
+		}
+	}
+
+	// Stored form: "daily", "weekly:mon,wed,fri" or "every:3".
+	public String format() {
+		switch (kind) {
+			case WEEKLY:
+				return "weekly:" + dayList(",", false);
+			case EVERY_N_DAYS:
+				return "every:" + interval;
+			default:
+				return "daily";
+		}
+	}
+
+	// Inverse of format().
+	public static Recurrence parse(String s) {
+		s = s.trim().toLowerCase(Locale.ROOT);
+		if (s.equals("daily")) return DAILY;
+		if (s.startsWith("every:")) {
+			try {
+				return everyNDays(Integer.parseInt(s.substring(6)));
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Bad interval in " + s);
+			}
+		}
+		if (s.startsWith("weekly:")) {
+			int mask = 0;
+			for (String name : s.substring(7).split(",")) {
+				int i = Arrays.asList(DAY_NAMES).indexOf(name.trim());
+				if (i < 0) throw new IllegalArgumentException("Unknown weekday in " + s);
+				mask |= 1 << i;
+			}
+			return weekly(mask);
+		}
+		throw new IllegalArgumentException("Unknown recurrence " + s);
+	}
+
+	// Day of week of an epoch day, 0 for Monday; 1970-01-01 was a Thursday.
+	private static int weekday(long day) {
+		return (int) Math.floorMod(day + 3, 7L);
+	}
+
+	private String dayList(String sep, boolean capitalize) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < 7; i++) {
+			if ((weekdays & (1 << i)) == 0) continue;
+			if (sb.length() > 0) sb.append(sep);
+			String name = DAY_NAMES[i];
+			sb.append(capitalize ? Character.toUpperCase(name.charAt(0)) + name.substring(1) : name);
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public String toString() {
+		switch (kind) {
+			case WEEKLY:
+				return weekdays == WEEKDAYS ? "Weekdays" : dayList(", ", true);
+			case EVERY_N_DAYS:
+				return "Every " + interval + " days";
+			default:
+				return "Daily";
+		}
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof Recurrence)) return false;
+		Recurrence r = (Recurrence) o;
+		return kind == r.kind && interval == r.interval && weekdays == r.weekdays;
+	}
+
+	@Override
+	public int hashCode() {
+		return (kind.ordinal() * 31 + interval) * 131 + weekdays;
+	}
+}
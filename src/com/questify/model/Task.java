@@ -5,19 +5,39 @@ public class Task {
 	private String id;
 	private String title;
 	private boolean done;
+	// Epoch milliseconds; 0 means unknown, e.g. for tasks saved before timestamps were recorded.
+	private long createdAt;
+	private long completedAt; // last completion, 0 while active
 	
 	public Task(String id, String title, boolean done) {
+		this(id, title, done, 0, 0);
+	}
+	
+	public Task(String id, String title, boolean done, long createdAt, long completedAt) {
 		this.id = id;
 		this.title = title;
 		this.done = done;
+		this.createdAt = createdAt;
+		this.completedAt = completedAt;
 	}
 	
 	public String getId() { return id; }
 	public String getTitle() { return title;}
 	public boolean isDone() { return done; }
+	public long getCreatedAt() { return createdAt; }
+	public long getCompletedAt() { return completedAt; }
 	
 	public void setTitle(String title) { this.title = title; }
-	public void setDone(boolean done) { this.done = done; }
+	
+	// Completing a task stamps the completion time; reopening it clears the stamp.
+	public void setDone(boolean done) {
+		if (done && !this.done) completedAt = System.currentTimeMillis();
+		if (!done) completedAt = 0;
+		this.done = done;
+	}
+	
+	// Detached copy, e.g. for handing to a background writer while the UI keeps editing.
+	public Task copy() { return new Task(id, title, done, createdAt, completedAt); }
 	
 	@Override
 	public String toString() {
@@ -0,0 +1,231 @@
+package com.questify.model;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Aggregate task statistics kept up to date from each add, toggle and delete rather than recounted:
+// active and completed totals, tasks completed per local day, and the run of consecutive days with at
+// least one completion. Each event is O(1) apart from the rare one that splits or joins a run of days.
+// Counts may go negative while a TaskStats only holds changes, to be add()ed to a full one. Not thread-safe.
+public final class TaskStats {
+	// Tasks per leaf of a parallel rebuild.
+	private static final int REBUILD_CHUNK = 8192;
+
+	private final ZoneId zoneId;
+	private final ZoneRules zone;
+	private int active;
+	private int done;
+	// Completions per day from firstDay; tasks done before completion times were kept count in done only.
+	private long firstDay;
+	private int[] days = new int[0];
+	private int span = 0;
+	// Latest day with a completion and the number of consecutive such days ending there.
+	private long lastDay = Long.MIN_VALUE;
+	private int run = 0;
+
+	public TaskStats() {
+		this(ZoneId.systemDefault());
+	}
+
+	public TaskStats(ZoneId zone) {
+		this.zoneId = zone;
+		this.zone = zone.getRules();
+	}
+
+	public int getActive() { return active; }
+	public int getDone() { return done; }
+
+	public void added(Task t) {
+		if (t.isDone()) {
+			done++;
+			count(t.getCompletedAt(), 1);
+		} else {
+			active++;
+		}
+	}
+
+	public void deleted(Task t) {
+		if (t.isDone()) {
+			done--;
+			count(t.getCompletedAt(), -1);
+		} else {
+			active--;
+		}
+	}
+
+	// An active task was completed at completedAt.
+	public void completed(long completedAt) {
+		active--;
+		done++;
+		count(completedAt, 1);
+	}
+
+	// A task completed at completedAt was made active again; pass the time from before setDone(false).
+	public void reopened(long completedAt) {
+		done--;
+		active++;
+		count(completedAt, -1);
+	}
+
+	// Tasks completed on epoch day, by local date.
+	public int doneOn(long day) {
+		long i = day - firstDay;
+		return i >= 0 && i < span ? days[(int) i] : 0;
+	}
+
+	// Tasks completed per day for epoch days [from, to).
+	public int[] perDay(long from, long to) {
+		int[] r = new int[(int) Math.max(0, to - from)];
+		long lo = Math.max(from, firstDay), hi = Math.min(to, firstDay + span);
+		if (lo < hi) System.arraycopy(days, (int) (lo - firstDay), r, (int) (lo - from), (int) (hi - lo));
+		return r;
+	}
+
+	// Consecutive days with a completion, ending today, or yesterday if nothing is done yet today.
+	public int currentStreak(long today) {
+		return lastDay >= today - 1 ? run : 0;
+	}
+
+	// Longest run of consecutive days with a completion; walks the days, so meant for showing, not events.
+	public int longestStreak() {
+		int best = 0, cur = 0;
+		for (int i = 0; i < span; i++) {
+			cur = days[i] > 0 ? cur + 1 : 0;
+			best = Math.max(best, cur);
+		}
+		return best;
+	}
+
+	// Fold in other, e.g. the changes made while this was being built.
+	public void add(TaskStats other) {
+		active += other.active;
+		done += other.done;
+		for (int i = 0; i < other.span; i++) {
+			if (other.days[i] != 0) bump(other.firstDay + i, other.days[i]);
+		}
+		findRun();
+	}
+
+	public TaskStats copy() {
+		TaskStats c = new TaskStats(zoneId);
+		c.restore(active, done, firstDay, Arrays.copyOf(days, span));
+		return c;
+	}
+
+	// Raw state, for StatsStore.
+	public long getFirstDay() { return firstDay; }
+	public int[] getDays() { return Arrays.copyOf(days, span); }
+
+	// Set the raw state read back from StatsStore.
+	public void restore(int active, int done, long firstDay, int[] days) {
+		this.active = active;
+		this.done = done;
+		this.firstDay = firstDay;
+		this.days = days;
+		this.span = days.length;
+		findRun();
+	}
+
+	// Count tasks in parallel: completedAt[i] is -1 for an active task, 0 for one done with no completion
+	// time, or when it was completed.
+	public static TaskStats rebuild(long[] completedAt, int n) {
+		return ForkJoinPool.commonPool().invoke(new Rebuild(ZoneId.systemDefault(), completedAt, 0, n));
+	}
+
+	private static final class Rebuild extends RecursiveTask<TaskStats> {
+		private final ZoneId zone;
+		private final long[] completedAt;
+		private final int from, to;
+
+		Rebuild(ZoneId zone, long[] completedAt, int from, int to) {
+			this.zone = zone;
+			this.completedAt = completedAt;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected TaskStats compute() {
+			if (to - from <= REBUILD_CHUNK) {
+				TaskStats s = new TaskStats(zone);
+				for (int i = from; i < to; i++) {
+					long at = completedAt[i];
+					if (at < 0) {
+						s.active++;
+					} else {
+						s.done++;
+						if (at > 0) s.bump(s.dayOf(at), 1);
+					}
+				}
+				s.findRun();
+				return s;
+			}
+			int mid = (from + to) >>> 1;
+			Rebuild right = new Rebuild(zone, completedAt, mid, to);
+			right.fork();
+			TaskStats s = new Rebuild(zone, completedAt, from, mid).compute();
+			s.add(right.join());
+			return s;
+		}
+	}
+
+	private void count(long completedAt, int delta) {
+		if (completedAt <= 0) return;
+		long day = dayOf(completedAt);
+		int before = doneOn(day);
+		bump(day, delta);
+		int after = before + delta;
+		if ((before > 0) == (after > 0)) return;
+		// The day started or stopped having completions. Completing something today is the usual case.
+		if (after > 0 && day > lastDay) {
+			run = day == lastDay + 1 ? run + 1 : 1;
+			lastDay = day;
+		} else {
+			findRun();
+		}
+	}
+
+	private void bump(long day, int delta) {
+		if (span == 0) {
+			firstDay = day;
+		} else if (day < firstDay) {
+			int shift = (int) (firstDay - day);
+			int[] grown = new int[Math.max(days.length, span + shift)];
+			System.arraycopy(days, 0, grown, shift, span);
+			days = grown;
+			span += shift;
+			firstDay = day;
+		}
+		int i = (int) (day - firstDay);
+		if (i >= days.length) days = Arrays.copyOf(days, Math.max(i + 1, days.length * 2));
+		if (i >= span) span = i + 1;
+		days[i] += delta;
+	}
+
+	// Recompute the run of days ending at the latest day with a completion.
+	private void findRun() {
+		int i = span - 1;
+		while (i >= 0 && days[i] <= 0) i--;
+		if (i < 0) {
+			lastDay = Long.MIN_VALUE;
+			run = 0;
+			return;
+		}
+		lastDay = firstDay + i;
+		int n = 0;
+		while (i >= 0 && days[i] > 0) {
+			n++;
+			i--;
+		}
+		run = n;
+	}
+
+	private long dayOf(long ms) {
+		Instant at = Instant.ofEpochMilli(ms);
+		return Math.floorDiv(ms + zone.getOffset(at).getTotalSeconds() * 1000L, 86_400_000L);
+	}
+}
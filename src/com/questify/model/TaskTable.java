@@ -0,0 +1,316 @@
+package com.questify.model;
+
+import com.questify.util.TaskIds;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Columnar task storage: ids as two longs, done flags packed 64 to a word, timestamps in long arrays
+// and titles as codes into a TitleDictionary. A row costs about 40 bytes, plus its title the first
+// time that title appears, against roughly 180 for a Task with its id and title Strings. Rows are read
+// back as short-lived Task copies, so changing a returned Task does nothing until it is written back
+// with set. Not thread-safe.
+public final class TaskTable {
+	private int size = 0;
+	private long[] idHi = new long[16];
+	private long[] idLo = new long[16];
+	// Ids that are not canonical UUIDs, by row, with a hash in idHi/idLo; null until one shows up.
+	private String[] oddIds;
+	private long[] doneBits = new long[1];
+	private long[] createdAt = new long[16];
+	private long[] completedAt = new long[16];
+	private int[] titleCode = new int[16];
+	private TitleDictionary titles = new TitleDictionary();
+
+	// id -> row, valid for rows below indexValidFrom; later rows are indexed on the next lookup.
+	private final IdIndex index = new IdIndex();
+	private int indexValidFrom = 0;
+
+	public int size() {
+		return size;
+	}
+
+	// A new Task holding row i.
+	public Task get(int i) {
+		check(i);
+		return new Task(id(i), title(i), isDone(i), createdAt[i], completedAt[i]);
+	}
+
+	public String id(int i) {
+		check(i);
+		return oddIds != null && oddIds[i] != null ? oddIds[i] : TaskIds.toString(idHi[i], idLo[i]);
+	}
+
+	public String title(int i) {
+		check(i);
+		return titles.title(titleCode[i]);
+	}
+
+	public boolean isDone(int i) {
+		check(i);
+		return (doneBits[i >>> 6] & (1L << i)) != 0;
+	}
+
+	public void add(Task t) {
+		insert(size, t);
+	}
+
+	// Insert at row i, shifting later rows down.
+	public void insert(int i, Task t) {
+		if (i < 0 || i > size) throw new ArrayIndexOutOfBoundsException(i);
+		ensureCapacity(size + 1);
+		int tail = size - i;
+		System.arraycopy(idHi, i, idHi, i + 1, tail);
+		System.arraycopy(idLo, i, idLo, i + 1, tail);
+		if (oddIds != null) System.arraycopy(oddIds, i, oddIds, i + 1, tail);
+		System.arraycopy(createdAt, i, createdAt, i + 1, tail);
+		System.arraycopy(completedAt, i, completedAt, i + 1, tail);
+		System.arraycopy(titleCode, i, titleCode, i + 1, tail);
+		shiftBitsUp(i);
+		size++;
+		titleCode[i] = titles.acquire(t.getTitle());
+		write(i, t);
+		indexValidFrom = Math.min(indexValidFrom, i);
+	}
+
+	// Overwrite row i with t's fields.
+	public void set(int i, Task t) {
+		check(i);
+		boolean sameId = idMatches(i, t.getId());
+		// Acquired before the old title is released, so an unchanged title keeps its code.
+		int code = titles.acquire(t.getTitle());
+		titles.release(titleCode[i]);
+		titleCode[i] = code;
+		write(i, t);
+		if (!sameId) indexValidFrom = Math.min(indexValidFrom, i);
+	}
+
+	public void remove(int i) {
+		check(i);
+		titles.release(titleCode[i]);
+		int tail = size - i - 1;
+		System.arraycopy(idHi, i + 1, idHi, i, tail);
+		System.arraycopy(idLo, i + 1, idLo, i, tail);
+		if (oddIds != null) {
+			System.arraycopy(oddIds, i + 1, oddIds, i, tail);
+			oddIds[size - 1] = null;
+		}
+		System.arraycopy(createdAt, i + 1, createdAt, i, tail);
+		System.arraycopy(completedAt, i + 1, completedAt, i, tail);
+		System.arraycopy(titleCode, i + 1, titleCode, i, tail);
+		shiftBitsDown(i);
+		size--;
+		indexValidFrom = Math.min(indexValidFrom, i);
+	}
+
+	public void clear() {
+		size = 0;
+		oddIds = null;
+		Arrays.fill(doneBits, 0);
+		titles.clear();
+		index.clear();
+		indexValidFrom = 0;
+	}
+
+	// Row of the task with this id, or -1.
+	public int indexOf(String id) {
+		long hi = keyHi(id);
+		long lo = keyLo(id);
+		int row = index.get(hi, lo);
+		if (row >= 0 && row < indexValidFrom && idMatches(row, id)) return row;
+		// Index the rows not yet covered, stopping early if the id turns up.
+		while (indexValidFrom < size) {
+			int r = indexValidFrom++;
+			index.put(idHi[r], idLo[r], r);
+			if (idHi[r] == hi && idLo[r] == lo && idMatches(r, id)) return r;
+		}
+		if (index.size() > 2 * size + 16) {
+			// Mostly entries for removed or moved rows; start over on the next lookup.
+			index.clear();
+			indexValidFrom = 0;
+		}
+		// Two ids can share a key only if a non-UUID id hashes onto another; fall back to a scan.
+		if (row >= 0 && oddIds != null) {
+			for (int r = 0; r < size; r++) {
+				if (idMatches(r, id)) return r;
+			}
+		}
+		return -1;
+	}
+
+	// Frozen copy of the rows, for handing to another thread; the arrays are copied, not shared.
+	public TaskTable copy() {
+		TaskTable c = new TaskTable();
+		c.size = size;
+		c.idHi = Arrays.copyOf(idHi, size);
+		c.idLo = Arrays.copyOf(idLo, size);
+		c.oddIds = oddIds != null ? Arrays.copyOf(oddIds, size) : null;
+		c.doneBits = Arrays.copyOf(doneBits, (size >>> 6) + 1);
+		c.createdAt = Arrays.copyOf(createdAt, size);
+		c.completedAt = Arrays.copyOf(completedAt, size);
+		c.titleCode = Arrays.copyOf(titleCode, size);
+		c.titles = titles.copy();
+		return c;
+	}
+
+	// Read-only list over the rows, building each Task as it is read.
+	public List<Task> asList() {
+		return new Rows();
+	}
+
+	private final class Rows extends AbstractList<Task> implements RandomAccess {
+		@Override
+		public Task get(int i) {
+			return TaskTable.this.get(i);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+	// Store every field of t but the title.
+	private void write(int i, Task t) {
+		String id = t.getId();
+		if (TaskIds.isPackable(id)) {
+			idHi[i] = TaskIds.hi(id);
+			idLo[i] = TaskIds.lo(id);
+			if (oddIds != null) oddIds[i] = null;
+		} else {
+			if (oddIds == null) oddIds = new String[idHi.length];
+			oddIds[i] = id;
+			idHi[i] = keyHi(id);
+			idLo[i] = keyLo(id);
+		}
+		setDone(i, t.isDone());
+		createdAt[i] = t.getCreatedAt();
+		completedAt[i] = t.getCompletedAt();
+	}
+
+	private boolean idMatches(int row, String id) {
+		if (oddIds != null && oddIds[row] != null) return oddIds[row].equals(id);
+		return TaskIds.isPackable(id) && idHi[row] == TaskIds.hi(id) && idLo[row] == TaskIds.lo(id);
+	}
+
+	// Index key of an id: its UUID bits, or a 128-bit spread of its hash for any other id.
+	private static long keyHi(String id) {
+		return TaskIds.isPackable(id) ? TaskIds.hi(id) : id.hashCode() * 0x9E3779B97F4A7C15L;
+	}
+
+	private static long keyLo(String id) {
+		return TaskIds.isPackable(id) ? TaskIds.lo(id) : ~((long) id.length() << 32 | (id.hashCode() & 0xFFFFFFFFL));
+	}
+
+	private void setDone(int i, boolean done) {
+		if (done) doneBits[i >>> 6] |= 1L << i;
+		else doneBits[i >>> 6] &= ~(1L << i);
+	}
+
+	// Move flags at i..size-1 up one row, leaving i clear.
+	private void shiftBitsUp(int i) {
+		int w = i >>> 6;
+		int last = size >>> 6; // the word that will hold the new last row
+		for (int k = last; k > w; k--) {
+			doneBits[k] = (doneBits[k] << 1) | (doneBits[k - 1] >>> 63);
+		}
+		long keep = doneBits[w] & ((1L << i) - 1);
+		long moved = (doneBits[w] & ~((1L << i) - 1)) << 1;
+		doneBits[w] = keep | moved;
+	}
+
+	// Move flags at i+1..size-1 down one row over i, clearing the old last row.
+	private void shiftBitsDown(int i) {
+		int w = i >>> 6;
+		int last = (size - 1) >>> 6;
+		long keep = doneBits[w] & ((1L << i) - 1);
+		long above = (doneBits[w] >>> 1) & ~((1L << i) - 1);
+		doneBits[w] = keep | above;
+		for (int k = w + 1; k <= last; k++) {
+			doneBits[k - 1] |= doneBits[k] << 63;
+			doneBits[k] >>>= 1;
+		}
+	}
+
+	private void ensureCapacity(int n) {
+		if (n > idHi.length) {
+			int cap = Math.max(n, idHi.length * 2);
+			idHi = Arrays.copyOf(idHi, cap);
+			idLo = Arrays.copyOf(idLo, cap);
+			if (oddIds != null) oddIds = Arrays.copyOf(oddIds, cap);
+			createdAt = Arrays.copyOf(createdAt, cap);
+			completedAt = Arrays.copyOf(completedAt, cap);
+			titleCode = Arrays.copyOf(titleCode, cap);
+		}
+		int words = (n >>> 6) + 1;
+		if (words > doneBits.length) doneBits = Arrays.copyOf(doneBits, Math.max(words, doneBits.length * 2));
+	}
+
+	private void check(int i) {
+		if (i < 0 || i >= size) throw new ArrayIndexOutOfBoundsException(i);
+	}
+
+	// Open-addressing (hi, lo) -> row map; a later put for the same key replaces the row.
+	private static final class IdIndex {
+		private long[] his = new long[64];
+		private long[] los = new long[64];
+		private int[] rows = new int[64];
+		private int count = 0;
+
+		IdIndex() {
+			Arrays.fill(rows, -1);
+		}
+
+		int size() {
+			return count;
+		}
+
+		int get(long hi, long lo) {
+			int mask = rows.length - 1;
+			for (int s = slot(hi, lo, mask); rows[s] >= 0; s = (s + 1) & mask) {
+				if (his[s] == hi && los[s] == lo) return rows[s];
+			}
+			return -1;
+		}
+
+		void put(long hi, long lo, int row) {
+			int mask = rows.length - 1;
+			int s = slot(hi, lo, mask);
+			for (; rows[s] >= 0; s = (s + 1) & mask) {
+				if (his[s] == hi && los[s] == lo) {
+					rows[s] = row;
+					return;
+				}
+			}
+			his[s] = hi;
+			los[s] = lo;
+			rows[s] = row;
+			if (++count * 2 > rows.length) grow();
+		}
+
+		void clear() {
+			Arrays.fill(rows, -1);
+			count = 0;
+		}
+
+		private void grow() {
+			long[] oh = his, ol = los;
+			int[] or = rows;
+			his = new long[oh.length * 2];
+			los = new long[ol.length * 2];
+			rows = new int[or.length * 2];
+			Arrays.fill(rows, -1);
+			count = 0;
+			for (int s = 0; s < or.length; s++) {
+				if (or[s] >= 0) put(oh[s], ol[s], or[s]);
+			}
+		}
+
+		private static int slot(long hi, long lo, int mask) {
+			long h = (hi ^ lo) * 0x9E3779B97F4A7C15L;
+			return (int) (h >>> 32) & mask;
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package com.questify.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Interned task titles with reference counts. Each distinct title is kept once, as UTF-8 in a shared
+// arena, and referred to by a small int code, so a habit title added thousands of times costs one
+// entry plus an int per use. A code whose count drops to zero is freed and handed to the next new
+// title; the arena is compacted once freed titles make up most of it. Not thread-safe.
+public final class TitleDictionary {
+	private static final int MIN_COMPACT_GARBAGE = 64 * 1024;
+
+	private byte[] arena = new byte[1024];
+	private int arenaUsed = 0;
+	private int arenaLive = 0;
+
+	// By code: where the title sits in the arena, its hash and its reference count (0 for a free code).
+	private int[] off = new int[16];
+	private int[] len = new int[16];
+	private int[] hash = new int[16];
+	private int[] refs = new int[16];
+	// Decoded title for codes used more than once, so their Tasks share one String.
+	private String[] strings = new String[16];
+	private int codes = 0; // codes handed out so far, free or not
+	private int live = 0;
+	private int[] free = new int[16];
+	private int freeCount = 0;
+
+	// Linear-probing hash of title -> code + 1; 0 marks an empty slot.
+	private int[] slots = new int[32];
+
+	// Number of distinct titles in use.
+	public int size() {
+		return live;
+	}
+
+	// Code for title, counting one more use of it.
+	public int acquire(String title) {
+		byte[] b = title.getBytes(StandardCharsets.UTF_8);
+		return acquire(b, 0, b.length);
+	}
+
+	// Code for the UTF-8 title in b[from, from + n), counting one more use of it.
+	public int acquire(byte[] b, int from, int n) {
+		int h = hash(b, from, n);
+		int mask = slots.length - 1;
+		int s = h & mask;
+		for (; slots[s] != 0; s = (s + 1) & mask) {
+			int c = slots[s] - 1;
+			if (hash[c] == h && len[c] == n && Arrays.equals(arena, off[c], off[c] + n, b, from, from + n)) {
+				refs[c]++;
+				return c;
+			}
+		}
+		int c = freeCount > 0 ? free[--freeCount] : newCode();
+		if (arenaUsed + n > arena.length) arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaUsed + n));
+		System.arraycopy(b, from, arena, arenaUsed, n);
+		off[c] = arenaUsed;
+		len[c] = n;
+		hash[c] = h;
+		refs[c] = 1;
+		arenaUsed += n;
+		arenaLive += n;
+		slots[s] = c + 1;
+		if (++live * 2 > slots.length) rehash(slots.length * 2);
+		return c;
+	}
+
+	// Drop one use of code; the title is forgotten when none are left.
+	public void release(int code) {
+		if (refs[code] <= 0) throw new IllegalStateException("Title code " + code + " is not in use");
+		if (--refs[code] > 0) return;
+		unslot(code);
+		strings[code] = null;
+		arenaLive -= len[code];
+		len[code] = 0;
+		if (freeCount == free.length) free = Arrays.copyOf(free, Math.max(16, free.length * 2));
+		free[freeCount++] = code;
+		live--;
+		maybeCompact();
+	}
+
+	public String title(int code) {
+		String s = strings[code];
+		if (s != null) return s;
+		s = new String(arena, off[code], len[code], StandardCharsets.UTF_8);
+		if (refs[code] > 1) strings[code] = s;
+		return s;
+	}
+
+	public void clear() {
+		Arrays.fill(refs, 0, codes, 0);
+		Arrays.fill(strings, 0, codes, null);
+		Arrays.fill(slots, 0);
+		codes = 0;
+		live = 0;
+		freeCount = 0;
+		arenaUsed = 0;
+		arenaLive = 0;
+	}
+
+	// Independent copy, e.g. to go with a TaskTable snapshot.
+	public TitleDictionary copy() {
+		TitleDictionary c = new TitleDictionary();
+		c.arena = Arrays.copyOf(arena, arenaUsed);
+		c.arenaUsed = arenaUsed;
+		c.arenaLive = arenaLive;
+		c.off = Arrays.copyOf(off, codes);
+		c.len = Arrays.copyOf(len, codes);
+		c.hash = Arrays.copyOf(hash, codes);
+		c.refs = Arrays.copyOf(refs, codes);
+		c.strings = Arrays.copyOf(strings, codes);
+		c.codes = codes;
+		c.live = live;
+		c.free = Arrays.copyOf(free, freeCount);
+		c.freeCount = freeCount;
+		c.slots = slots.clone();
+		return c;
+	}
+
+	private int newCode() {
+		if (codes == off.length) {
+			int cap = Math.max(16, codes * 2);
+			off = Arrays.copyOf(off, cap);
+			len = Arrays.copyOf(len, cap);
+			hash = Arrays.copyOf(hash, cap);
+			refs = Arrays.copyOf(refs, cap);
+			strings = Arrays.copyOf(strings, cap);
+		}
+		return codes++;
+	}
+
+	// Remove code's slot, moving later entries of the same probe run back so lookups still reach them.
+	private void unslot(int code) {
+		int mask = slots.length - 1;
+		int i = hash[code] & mask;
+		while (slots[i] != code + 1) i = (i + 1) & mask;
+		for (int j = (i + 1) & mask; slots[j] != 0; j = (j + 1) & mask) {
+			int home = hash[slots[j] - 1] & mask;
+			// An entry whose home lies cyclically in (i, j] is still reachable; anything else moves into the hole.
+			boolean reachable = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+			if (!reachable) {
+				slots[i] = slots[j];
+				i = j;
+			}
+		}
+		slots[i] = 0;
+	}
+
+	private void rehash(int capacity) {
+		slots = new int[capacity];
+		int mask = capacity - 1;
+		for (int c = 0; c < codes; c++) {
+			if (refs[c] == 0) continue;
+			int s = hash[c] & mask;
+			while (slots[s] != 0) s = (s + 1) & mask;
+			slots[s] = c + 1;
+		}
+	}
+
+	// Freed titles leave garbage in the arena; rewrite it in code order once that dominates.
+	private void maybeCompact() {
+		int garbage = arenaUsed - arenaLive;
+		if (garbage < MIN_COMPACT_GARBAGE || garbage < arenaLive) return;
+		byte[] packed = new byte[Math.max(1024, arenaLive + arenaLive / 2)];
+		int at = 0;
+		for (int c = 0; c < codes; c++) {
+			if (refs[c] == 0) continue;
+			System.arraycopy(arena, off[c], packed, at, len[c]);
+			off[c] = at;
+			at += len[c];
+		}
+		arena = packed;
+		arenaUsed = at;
+	}
+
+	private static int hash(byte[] b, int from, int n) {
+		int h = 1;
+		for (int i = from; i < from + n; i++) h = 31 * h + b[i];
+		return (h ^ (h >>> 16)) * 0x9E3779B9;
+	}
+}
@@ -0,0 +1,326 @@
+package com.questify.store;
+
+import com.questify.model.Task;
+import com.questify.util.AtomicFiles;
+import com.questify.util.AtomicFiles.Durability;
+import com.questify.util.TaskIds;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+// TaskStore backed by a compact, versioned binary file.
+//
+// Layout (big-endian):
+//   header: int magic "QTSK", short version, short reserved, int record count
+//   titles: varint count, then each distinct title once as varint length + UTF-8
+//   record: byte flags (bit 0 done, bit 1 packed id, bit 2 timestamps)
+//           packed id: long hi, long lo  |  otherwise: varint length + UTF-8 id
+//           varint title code, an index into the titles
+//           with bit 2: varlong createdAt, varlong completedAt (epoch ms)
+// Habit titles repeat thousands of times, so each save writes a fresh table of the titles still in
+// use and records refer to it. Versions 1 and 2 predate the table and store the title inline in each
+// record (version 1 also predates timestamps); both are still read, and saving writes version 3.
+public class BinaryTaskStore implements TaskStore {
+	static final int MAGIC = 0x5154534B; // "QTSK"
+	static final short VERSION = 3;
+	private static final int FIRST_TITLE_TABLE_VERSION = 3;
+
+	private static final int FLAG_DONE = 1;
+	private static final int FLAG_PACKED_ID = 2;
+	private static final int FLAG_TIMES = 4;
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final Path file;
+	private final Durability durability;
+
+	public BinaryTaskStore(Path file) {
+		this(file, Durability.FILE);
+	}
+
+	public BinaryTaskStore(Path file, Durability durability) {
+		this.file = file;
+		this.durability = durability;
+	}
+
+	// One-shot import of a legacy tasks.txt: runs only if this store's file does not exist yet. The text
+	// file is left in place, as the other backends do when seeding, so going back to the text store
+	// still finds the tasks. Returns true if it migrated.
+	public synchronized boolean migrateFrom(Path textFile) throws IOException {
+		if (Files.exists(file) || !Files.exists(textFile)) return false;
+		saveTasks(new TextFileTaskStore(textFile).loadTasks());
+		return true;
+	}
+
+	@Override
+	public List<Task> loadTasks() throws IOException {
+		List<Task> out = new ArrayList<>();
+		forEachTask(out::add);
+		return out;
+	}
+
+	@Override
+	public void forEachTask(Consumer<? super Task> action) throws IOException {
+		if (!Files.exists(file)) return;
+		try (DataInputStream in = new DataInputStream(new RecordInput(Files.newInputStream(file)))) {
+			int version = readHeader(in);
+			int count = in.readInt();
+			byte[] buf = new byte[256];
+			// Read once, so every task with a title shares its String.
+			String[] titles = null;
+			if (version >= FIRST_TITLE_TABLE_VERSION) {
+				titles = new String[readVarInt(in)];
+				for (int i = 0; i < titles.length; i++) {
+					int len = readVarInt(in);
+					buf = ensure(buf, len);
+					in.readFully(buf, 0, len);
+					titles[i] = new String(buf, 0, len, StandardCharsets.UTF_8);
+				}
+			}
+			for (int i = 0; i < count; i++) {
+				int flags = in.readUnsignedByte();
+				String id;
+				if ((flags & FLAG_PACKED_ID) != 0) {
+					long hi = in.readLong();
+					long lo = in.readLong();
+					id = TaskIds.toString(hi, lo);
+				} else {
+					int len = readVarInt(in);
+					buf = ensure(buf, len);
+					in.readFully(buf, 0, len);
+					id = new String(buf, 0, len, StandardCharsets.UTF_8);
+				}
+				String title;
+				if (titles != null) {
+					int code = readVarInt(in);
+					if (code < 0 || code >= titles.length) throw new IOException("Malformed title code " + code);
+					title = titles[code];
+				} else {
+					int len = readVarInt(in);
+					buf = ensure(buf, len);
+					in.readFully(buf, 0, len);
+					title = new String(buf, 0, len, StandardCharsets.UTF_8);
+				}
+				long createdAt = 0, completedAt = 0;
+				if ((flags & FLAG_TIMES) != 0) {
+					createdAt = readVarLong(in);
+					completedAt = readVarLong(in);
+				}
+				action.accept(new Task(id, title, (flags & FLAG_DONE) != 0, createdAt, completedAt));
+			}
+		}
+	}
+
+	@Override
+	public synchronized void saveTasks(List<Task> tasks) throws IOException {
+		// Codes in order of first use; only titles some task still has make it into the table.
+		TitleCodes titles = new TitleCodes(tasks.size());
+		int[] titleOf = new int[tasks.size()];
+		int n = 0;
+		for (Task t : tasks) titleOf[n++] = titles.code(t.getTitle());
+		AtomicFiles.write(file, durability, os -> {
+			DataOutputStream out = new DataOutputStream(new RecordBuffer(os));
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			out.writeShort(0);
+			out.writeInt(tasks.size());
+			writeVarInt(out, titles.size());
+			for (int code = 0; code < titles.size(); code++) {
+				writeBytes(out, titles.title(code).getBytes(StandardCharsets.UTF_8));
+			}
+			int i = 0;
+			for (Task t : tasks) {
+				String id = t.getId();
+				boolean packed = TaskIds.isPackable(id);
+				boolean times = t.getCreatedAt() != 0 || t.getCompletedAt() != 0;
+				out.writeByte((t.isDone() ? FLAG_DONE : 0) | (packed ? FLAG_PACKED_ID : 0) | (times ? FLAG_TIMES : 0));
+				if (packed) {
+					out.writeLong(TaskIds.hi(id));
+					out.writeLong(TaskIds.lo(id));
+				} else {
+					writeBytes(out, id.getBytes(StandardCharsets.UTF_8));
+				}
+				writeVarInt(out, titleOf[i++]);
+				if (times) {
+					writeVarLong(out, t.getCreatedAt());
+					writeVarLong(out, t.getCompletedAt());
+				}
+			}
+			out.flush();
+		});
+	}
+
+	// Validate magic and version; returns the version, leaving the record count to be read.
+	private static int readHeader(DataInputStream in) throws IOException {
+		if (in.readInt() != MAGIC) throw new IOException("Not a Questify task file");
+		int version = in.readUnsignedShort();
+		if (version < 1 || version > VERSION) throw new IOException("Unsupported task file version " + version);
+		in.readUnsignedShort();
+		return version;
+	}
+
+	// Unsynchronized buffers under the Data streams. Varints are read and written a byte at a time, and
+	// each byte taking a Buffered stream's lock costs more than decoding or encoding it.
+	private static final class RecordInput extends FilterInputStream {
+		private final byte[] buf = new byte[BUFFER_SIZE];
+		private int pos = 0;
+		private int end = 0;
+
+		RecordInput(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (pos == end && !fill()) return -1;
+			return buf[pos++] & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) return 0;
+			if (pos == end) {
+				// Large reads skip the buffer.
+				if (len >= buf.length) return in.read(b, off, len);
+				if (!fill()) return -1;
+			}
+			int n = Math.min(len, end - pos);
+			System.arraycopy(buf, pos, b, off, n);
+			pos += n;
+			return n;
+		}
+
+		private boolean fill() throws IOException {
+			int n = in.read(buf, 0, buf.length);
+			pos = 0;
+			end = Math.max(n, 0);
+			return n > 0;
+		}
+	}
+
+	private static final class RecordBuffer extends FilterOutputStream {
+		private final byte[] buf = new byte[8 * 1024];
+		private int n = 0;
+
+		RecordBuffer(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			if (n == buf.length) drain();
+			buf[n++] = (byte) b;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (len > buf.length - n) {
+				drain();
+				if (len > buf.length) {
+					out.write(b, off, len);
+					return;
+				}
+			}
+			System.arraycopy(b, off, buf, n, len);
+			n += len;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			drain();
+			out.flush();
+		}
+
+		private void drain() throws IOException {
+			out.write(buf, 0, n);
+			n = 0;
+		}
+	}
+
+	// Title -> code for one save: open addressing over the titles' own cached hash codes, so tasks
+	// sharing a title, as loaded ones do, mostly compare by reference.
+	private static final class TitleCodes {
+		private String[] keys;
+		private int[] codes;
+		private String[] byCode;
+		private int size = 0;
+		// Slots come from the top bits of the spread hash, so every slot of a large table is reachable.
+		private final int shift;
+
+		TitleCodes(int expected) {
+			int cap = Integer.highestOneBit(Math.max(16, expected) * 2 - 1) * 2;
+			keys = new String[cap];
+			codes = new int[cap];
+			byCode = new String[16];
+			shift = Integer.numberOfLeadingZeros(cap) + 1;
+		}
+
+		int code(String title) {
+			int mask = keys.length - 1;
+			int s = (title.hashCode() * 0x9E3779B9) >>> shift;
+			for (String k; (k = keys[s]) != null; s = (s + 1) & mask) {
+				if (k == title || k.equals(title)) return codes[s];
+			}
+			if (size == byCode.length) byCode = Arrays.copyOf(byCode, size * 2);
+			byCode[size] = title;
+			keys[s] = title;
+			codes[s] = size;
+			return size++;
+		}
+
+		int size() {
+			return size;
+		}
+
+		String title(int code) {
+			return byCode[code];
+		}
+	}
+
+	private static void writeBytes(DataOutputStream out, byte[] b) throws IOException {
+		writeVarInt(out, b.length);
+		out.write(b);
+	}
+
+	static void writeVarInt(DataOutput out, int v) throws IOException {
+		while ((v & ~0x7F) != 0) {
+			out.writeByte((v & 0x7F) | 0x80);
+			v >>>= 7;
+		}
+		out.writeByte(v);
+	}
+
+	static void writeVarLong(DataOutput out, long v) throws IOException {
+		while ((v & ~0x7FL) != 0) {
+			out.writeByte((int) (v & 0x7F) | 0x80);
+			v >>>= 7;
+		}
+		out.writeByte((int) v);
+	}
+
+	static long readVarLong(DataInput in) throws IOException {
+		long v = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = in.readUnsignedByte();
+			v |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return v;
+		}
+		throw new IOException("Malformed varlong");
+	}
+
+	static int readVarInt(DataInput in) throws IOException {
+		int v = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = in.readUnsignedByte();
+			v |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) return v;
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	private static byte[] ensure(byte[] buf, int len) {
+		return buf.length >= len ? buf : new byte[Math.max(len, buf.length * 2)];
+	}
+}
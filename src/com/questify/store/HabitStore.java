@@ -0,0 +1,129 @@
+package com.questify.store;
+
+import com.questify.diag.StoreIoEvent;
+import com.questify.model.Habit;
+import com.questify.model.Recurrence;
+import com.questify.util.AtomicFiles;
+import com.questify.util.AtomicFiles.Durability;
+import com.questify.util.WriteBehind;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.regex.Pattern;
+
+// Habits in a file beside tasks.txt, one line per habit in the task file's separator style:
+//   id||SEP||title||SEP||rule||SEP||startDay||SEP||createdAt||SEP||done
+// rule is Recurrence.format() and done the completion bitmap as comma-separated hex words, first
+// day in the low bit of the first word. The file grows with the number of habits, not the days they
+// have run, so it is always read and written whole. Saves are written behind by a WriteBehind.
+public class HabitStore {
+	private static final String SEP = "||SEP||";
+	private static final Pattern FIELDS = Pattern.compile(Pattern.quote(SEP));
+
+	private final Path file;
+	private final Durability durability;
+	private final WriteBehind<List<Habit>> writer;
+
+	public HabitStore(Path file) {
+		this(file, Durability.FILE);
+	}
+
+	public HabitStore(Path file, Durability durability) {
+		this.file = file;
+		this.durability = durability;
+		this.writer = new WriteBehind<>("questify-habit-writer", WriteBehind.DEFAULT_DELAY_MS, this::save);
+	}
+
+	// Every habit in the file; lines that do not parse are skipped.
+	public List<Habit> load() throws IOException {
+		List<Habit> out = new ArrayList<>();
+		if (!Files.exists(file)) return out;
+		StoreIoEvent event = new StoreIoEvent();
+		event.begin();
+		long bytes = 0;
+		try (BufferedReader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = r.readLine()) != null) {
+				bytes += line.length() + 1;
+				Habit h = parseLine(line);
+				if (h != null) out.add(h);
+			}
+		}
+		commit(event, "load", bytes, out.size());
+		return out;
+	}
+
+	private static Habit parseLine(String line) {
+		String[] f = FIELDS.split(line, -1);
+		if (f.length < 6) return null;
+		try {
+			Recurrence rule = Recurrence.parse(f[2]);
+			long startDay = Long.parseLong(f[3]);
+			long createdAt = Long.parseLong(f[4]);
+			long[] done;
+			if (f[5].isEmpty()) {
+				done = new long[0];
+			} else {
+				String[] words = f[5].split(",");
+				done = new long[words.length];
+				for (int i = 0; i < words.length; i++) done[i] = Long.parseUnsignedLong(words[i], 16);
+			}
+			return new Habit(f[0], f[1], rule, startDay, createdAt, done);
+		} catch (IllegalArgumentException e) {
+			// Includes NumberFormatException; a damaged line loses that habit, not the file.
+			return null;
+		}
+	}
+
+	// Write habits, replacing the file; runs on the writer thread.
+	private void save(List<Habit> habits) throws IOException {
+		StoreIoEvent event = new StoreIoEvent();
+		event.begin();
+		AtomicFiles.write(file, durability, os -> {
+			Writer w = new OutputStreamWriter(os, StandardCharsets.UTF_8);
+			for (Habit h : habits) {
+				w.write(h.getId());
+				w.write(SEP);
+				w.write(h.getTitle());
+				w.write(SEP);
+				w.write(h.getRule().format());
+				w.write(SEP);
+				w.write(Long.toString(h.getStartDay()));
+				w.write(SEP);
+				w.write(Long.toString(h.getCreatedAt()));
+				w.write(SEP);
+				long[] done = h.completionBits();
+				for (int i = 0; i < done.length; i++) {
+					if (i > 0) w.write(',');
+					w.write(Long.toHexString(done[i]));
+				}
+				w.write(System.lineSeparator());
+			}
+			w.flush();
+		});
+		event.end();
+		if (event.shouldCommit()) commit(event, "save", Files.size(file), habits.size());
+	}
+
+	// Save a snapshot on the writer thread once edits pause; a newer snapshot replaces it meanwhile.
+	// The caller hands over the list and must not change it or its habits afterwards.
+	public void submit(List<Habit> snapshot) {
+		writer.submit(snapshot);
+	}
+
+	// Write any pending snapshot now and stop the writer; call before the app exits.
+	public void close() {
+		writer.close();
+	}
+
+	private void commit(StoreIoEvent event, String operation, long bytes, int records) {
+		event.operation = operation;
+		event.store = "habits";
+		event.path = file.toString();
+		event.bytes = bytes;
+		event.records = records;
+		event.commit();
+	}
+}
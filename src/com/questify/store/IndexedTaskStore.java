@@ -0,0 +1,630 @@
+package com.questify.store;
+
+import com.questify.model.Task;
+import com.questify.util.AtomicFiles;
+import com.questify.util.AtomicFiles.Durability;
+import com.questify.util.TaskIds;
+import com.questify.util.Titles;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// Embedded indexed TaskStore: records live in an append-only data file and are found through
+// in-memory indexes, so lookups by id, by done state or by title prefix read only the
+// matching records.
+//
+//   primary: id -> record location (hash, O(1))
+//   done:    active and completed ids, each in list order (positional access for paging)
+//   title:   normalized title + id -> id (sorted; prefix scans are O(log N + k)), built on first use
+//
+// The primary and done indexes are checkpointed to a sidecar ".idx" file on close and compaction,
+// so reopening reads only ids and offsets; records appended after the checkpoint are replayed.
+public class IndexedTaskStore implements TaskStore, Closeable {
+	private static final byte OP_UPSERT = 1;
+	private static final byte OP_DELETE = 2;
+
+	private static final int INDEX_MAGIC = 0x51544958; // "QTIX"
+	// Version 1 kept a 32-bit String.hashCode per task, version 2 no timestamps and no check that the data
+	// file still holds what the checkpoint covers; older checkpoints are ignored and replayed.
+	private static final short INDEX_VERSION = 3;
+
+	// Each record is framed as [int length][payload][long crc32].
+	private static final int FRAME = 4 + 8;
+	private static final int WINDOW_SIZE = 64 * 1024;
+	// Compact when dead bytes exceed live bytes and this floor.
+	private static final long COMPACT_MIN_GARBAGE = 1 << 20;
+
+	// Where one task's latest record lives.
+	private static final class Entry {
+		long offset;
+		int length;
+		boolean done;
+		long titleDigest; // see digest(); tells saveTasks whether a title changed without reading it
+		long createdAt;
+		long completedAt;
+
+		Entry(long offset, int length, boolean done, long titleDigest, long createdAt, long completedAt) {
+			this.offset = offset;
+			this.length = length;
+			this.done = done;
+			this.titleDigest = titleDigest;
+			this.createdAt = createdAt;
+			this.completedAt = completedAt;
+		}
+
+		boolean matches(Task t) {
+			return done == t.isDone() && createdAt == t.getCreatedAt() && completedAt == t.getCompletedAt()
+					&& titleDigest == digest(t.getTitle());
+		}
+	}
+
+	private final Path file;
+	private final Path indexFile;
+	private final Durability durability;
+
+	private final HashMap<String, Entry> primary = new HashMap<>();
+	private final OrderedIds active = new OrderedIds();
+	private final OrderedIds completed = new OrderedIds();
+	private TreeMap<String, String> titles;
+
+	private FileChannel channel;
+	private long end;
+	private long garbage;
+	private long checkpointed = -1;
+	private ByteBuffer window;
+	private long windowStart = -1;
+
+	public IndexedTaskStore(Path file) {
+		this(file, Durability.FILE);
+	}
+
+	public IndexedTaskStore(Path file, Durability durability) {
+		this.file = file;
+		this.indexFile = file.resolveSibling(file.getFileName() + ".idx");
+		this.durability = durability;
+	}
+
+	@Override
+	public boolean supportsRecordUpdates() {
+		return true;
+	}
+
+	// Active tasks first, then completed, each in list order.
+	@Override
+	public synchronized List<Task> loadTasks() throws IOException {
+		open();
+		List<Task> out = new ArrayList<>(primary.size());
+		forEachTask(out::add);
+		return out;
+	}
+
+	@Override
+	public synchronized void forEachTask(Consumer<? super Task> action) throws IOException {
+		open();
+		for (String id : active) action.accept(read(id));
+		for (String id : completed) action.accept(read(id));
+	}
+
+	@Override
+	public boolean supportsPaging() {
+		return true;
+	}
+
+	// A window of the active or completed list, in list order.
+	@Override
+	public synchronized List<Task> loadTasks(boolean done, int from, int max) throws IOException {
+		open();
+		List<String> ids = done ? completed : active;
+		int to = (int) Math.min(ids.size(), (long) from + max);
+		List<Task> out = new ArrayList<>(Math.max(0, to - from));
+		for (int i = Math.max(0, from); i < to; i++) out.add(read(ids.get(i)));
+		return out;
+	}
+
+	@Override
+	public synchronized int count(boolean done) throws IOException {
+		open();
+		return done ? completed.size() : active.size();
+	}
+
+	// The task with this id, or null.
+	@Override
+	public synchronized Task get(String id) throws IOException {
+		open();
+		return primary.containsKey(id) ? read(id) : null;
+	}
+
+	// Matches in title order. The first call builds the title index, which reads every record once.
+	@Override
+	public synchronized List<Task> findByTitlePrefix(boolean done, String prefix, int limit) throws IOException {
+		open();
+		buildTitleIndex();
+		String key = Titles.searchKey(prefix);
+		List<Task> out = new ArrayList<>();
+		for (Map.Entry<String, String> e : titles.tailMap(key, true).entrySet()) {
+			if (out.size() >= limit || !e.getKey().startsWith(key)) break;
+			if (primary.get(e.getValue()).done == done) out.add(read(e.getValue()));
+		}
+		return out;
+	}
+
+	// Apply the snapshot as per-record changes: only tasks that differ are appended.
+	@Override
+	public synchronized void saveTasks(List<Task> tasks) throws IOException {
+		open();
+		Set<String> seen = new HashSet<>(tasks.size() * 2);
+		for (Task t : tasks) {
+			seen.add(t.getId());
+			Entry e = primary.get(t.getId());
+			if (e == null || !e.matches(t)) upsert(t);
+		}
+		List<String> removed = new ArrayList<>();
+		for (String id : primary.keySet()) {
+			if (!seen.contains(id)) removed.add(id);
+		}
+		for (String id : removed) delete(id);
+	}
+
+	@Override
+	public synchronized void upsert(Task t) throws IOException {
+		open();
+		String oldTitle = titles != null && primary.containsKey(t.getId()) ? read(t.getId()).getTitle() : null;
+		ByteBuffer rec = encode(OP_UPSERT, t);
+		long at = append(rec);
+		applyUpsert(at, rec.limit() - FRAME, t);
+		if (titles != null) {
+			if (oldTitle != null) titles.remove(titleKey(oldTitle, t.getId()));
+			titles.put(titleKey(t.getTitle(), t.getId()), t.getId());
+		}
+		maybeCompact();
+	}
+
+	@Override
+	public synchronized boolean update(Task t) throws IOException {
+		open();
+		if (!primary.containsKey(t.getId())) return false;
+		upsert(t);
+		return true;
+	}
+
+	@Override
+	public synchronized void delete(String id) throws IOException {
+		open();
+		if (!primary.containsKey(id)) return;
+		if (titles != null) titles.remove(titleKey(read(id).getTitle(), id));
+		ByteBuffer rec = encode(OP_DELETE, new Task(id, "", false));
+		append(rec);
+		applyDelete(id, rec.limit());
+		maybeCompact();
+	}
+
+	// Checkpoint the index and release the data file.
+	@Override
+	public synchronized void close() throws IOException {
+		if (channel == null) return;
+		if (checkpointed != end) writeIndex();
+		channel.close();
+		channel = null;
+	}
+
+	// Open the data file and restore the indexes from the checkpoint plus any newer records.
+	private void open() throws IOException {
+		if (channel != null) return;
+		Files.createDirectories(file.toAbsolutePath().getParent());
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		end = channel.size();
+		windowStart = -1;
+		primary.clear();
+		active.clear();
+		completed.clear();
+		titles = null;
+		garbage = 0;
+		checkpointed = -1;
+		replay(loadIndex());
+	}
+
+	// Load the sidecar checkpoint; returns the data offset it covers, or 0 if it is missing or stale. The
+	// checkpoint holds the crc of the record ending where it stops, so a data file that was replaced or
+	// rewritten since, yet is at least as long, is replayed rather than read through stale offsets.
+	private long loadIndex() {
+		if (!Files.exists(indexFile)) return 0;
+		try {
+			ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(indexFile));
+			if (in.getInt() != INDEX_MAGIC || in.getShort() != INDEX_VERSION) return 0;
+			long covered = in.getLong();
+			long lastCrc = in.getLong();
+			if (covered > end || (covered > 0 && (covered < FRAME || lastCrc(covered) != lastCrc))) return 0;
+			garbage = in.getLong();
+			readPartition(in, active, false);
+			readPartition(in, completed, true);
+			checkpointed = covered;
+			return covered;
+		} catch (IOException | RuntimeException e) {
+			primary.clear();
+			active.clear();
+			completed.clear();
+			garbage = 0;
+			return 0;
+		}
+	}
+
+	private void readPartition(ByteBuffer in, OrderedIds ids, boolean done) {
+		int n = in.getInt();
+		for (int i = 0; i < n; i++) {
+			String id;
+			if (in.get() != 0) {
+				id = TaskIds.toString(in.getLong(), in.getLong());
+			} else {
+				byte[] b = new byte[in.getShort() & 0xFFFF];
+				in.get(b);
+				id = new String(b, StandardCharsets.UTF_8);
+			}
+			primary.put(id, new Entry(in.getLong(), in.getInt(), done, in.getLong(), in.getLong(), in.getLong()));
+			ids.add(id);
+		}
+	}
+
+	private void writeIndex() throws IOException {
+		long lastCrc = end > 0 ? lastCrc(end) : 0;
+		checkpointed = end;
+		AtomicFiles.write(indexFile, durability, os -> {
+			DataOutputStream out = new DataOutputStream(os);
+			out.writeInt(INDEX_MAGIC);
+			out.writeShort(INDEX_VERSION);
+			out.writeLong(end);
+			out.writeLong(lastCrc);
+			out.writeLong(garbage);
+			writePartition(out, active);
+			writePartition(out, completed);
+			out.flush();
+		});
+	}
+
+	private void writePartition(DataOutputStream out, OrderedIds ids) throws IOException {
+		out.writeInt(ids.size());
+		for (String id : ids) {
+			Entry e = primary.get(id);
+			boolean packed = TaskIds.isPackable(id);
+			out.writeBoolean(packed);
+			if (packed) {
+				out.writeLong(TaskIds.hi(id));
+				out.writeLong(TaskIds.lo(id));
+			} else {
+				byte[] b = id.getBytes(StandardCharsets.UTF_8);
+				out.writeShort(b.length);
+				out.write(b);
+			}
+			out.writeLong(e.offset);
+			out.writeInt(e.length);
+			out.writeLong(e.titleDigest);
+			out.writeLong(e.createdAt);
+			out.writeLong(e.completedAt);
+		}
+	}
+
+	// Apply data records from 'from' to the end; a torn or corrupt tail is truncated away.
+	private void replay(long from) throws IOException {
+		long pos = from;
+		CRC32 crc = new CRC32();
+		// Not closed: closing a channel stream would close the data file itself.
+		DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(from)), WINDOW_SIZE));
+		while (pos + FRAME <= end) {
+			int len = in.readInt();
+			if (len <= 0 || pos + FRAME + len > end) break;
+			byte[] payload = new byte[len];
+			in.readFully(payload);
+			crc.reset();
+			crc.update(payload);
+			if (in.readLong() != crc.getValue()) break;
+
+			Task t = decode(ByteBuffer.wrap(payload));
+			if (payload[0] == OP_DELETE) {
+				applyDelete(t.getId(), FRAME + len);
+			} else {
+				applyUpsert(pos, len, t);
+			}
+			pos += FRAME + len;
+		}
+		if (pos < end) {
+			channel.truncate(pos);
+			end = pos;
+		}
+	}
+
+	private void applyUpsert(long offset, int length, Task t) {
+		String id = t.getId();
+		boolean done = t.isDone();
+		long titleDigest = digest(t.getTitle());
+		Entry old = primary.get(id);
+		if (old == null) {
+			(done ? completed : active).add(id);
+			primary.put(id, new Entry(offset, length, done, titleDigest, t.getCreatedAt(), t.getCompletedAt()));
+			return;
+		}
+		garbage += FRAME + old.length;
+		if (old.done != done) {
+			// Toggled tasks move to the end of their new list, mirroring the UI.
+			(old.done ? completed : active).remove(id);
+			(done ? completed : active).add(id);
+		}
+		old.offset = offset;
+		old.length = length;
+		old.done = done;
+		old.titleDigest = titleDigest;
+		old.createdAt = t.getCreatedAt();
+		old.completedAt = t.getCompletedAt();
+	}
+
+	private void applyDelete(String id, int deleteRecordSize) {
+		Entry old = primary.remove(id);
+		garbage += deleteRecordSize;
+		if (old == null) return;
+		garbage += FRAME + old.length;
+		(old.done ? completed : active).remove(id);
+	}
+
+	private void buildTitleIndex() throws IOException {
+		if (titles != null) return;
+		TreeMap<String, String> t = new TreeMap<>();
+		for (String id : active) t.put(titleKey(read(id).getTitle(), id), id);
+		for (String id : completed) t.put(titleKey(read(id).getTitle(), id), id);
+		titles = t;
+	}
+
+	// The separator sorts before any title character, so prefix ranges stay contiguous.
+	private static String titleKey(String title, String id) {
+		return Titles.searchKey(title) + '\u0000' + id;
+	}
+
+	private long append(ByteBuffer rec) throws IOException {
+		long at = end;
+		long pos = at;
+		while (rec.hasRemaining()) pos += channel.write(rec, pos);
+		if (durability != Durability.NONE) channel.force(false);
+		end = pos;
+		return at;
+	}
+
+	private Task read(String id) throws IOException {
+		Entry e = primary.get(id);
+		return decode(payload(e.offset + 4, e.length));
+	}
+
+	// Record bytes at [pos, pos+len), served from a read-ahead window so sequential scans do few reads.
+	private ByteBuffer payload(long pos, int len) throws IOException {
+		if (len > WINDOW_SIZE) {
+			ByteBuffer bb = ByteBuffer.allocate(len);
+			readFully(bb, pos);
+			bb.flip();
+			return bb;
+		}
+		if (window == null) window = ByteBuffer.allocate(WINDOW_SIZE);
+		if (windowStart < 0 || pos < windowStart || pos + len > windowStart + window.limit()) {
+			window.clear();
+			window.limit((int) Math.min(WINDOW_SIZE, end - pos));
+			readFully(window, pos);
+			window.flip();
+			windowStart = pos;
+		}
+		ByteBuffer view = window.duplicate();
+		view.position((int) (pos - windowStart));
+		return view;
+	}
+
+	// The crc that frames the record ending at pos.
+	private long lastCrc(long pos) throws IOException {
+		ByteBuffer bb = ByteBuffer.allocate(8);
+		readFully(bb, pos - 8);
+		return bb.getLong(0);
+	}
+
+	private void readFully(ByteBuffer bb, long pos) throws IOException {
+		while (bb.hasRemaining()) {
+			int n = channel.read(bb, pos);
+			if (n < 0) throw new EOFException("Record past end of " + file);
+			pos += n;
+		}
+	}
+
+	private void maybeCompact() throws IOException {
+		if (garbage > COMPACT_MIN_GARBAGE && garbage > end - garbage) compact();
+	}
+
+	// Rewrite live records in list order, swap the file in, then checkpoint the new offsets.
+	private void compact() throws IOException {
+		Path tmp = file.resolveSibling(file.getFileName() + ".compact");
+		int n = primary.size();
+		long[] offsets = new long[n];
+		List<String> order = new ArrayList<>(n);
+		order.addAll(active);
+		order.addAll(completed);
+		try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			long pos = 0;
+			for (int i = 0; i < n; i++) {
+				Task t = read(order.get(i));
+				ByteBuffer rec = encode(OP_UPSERT, t);
+				offsets[i] = pos;
+				while (rec.hasRemaining()) pos += out.write(rec, pos);
+			}
+			if (durability != Durability.NONE) out.force(true);
+		}
+		channel.close();
+		try {
+			AtomicFiles.commit(tmp, file, durability);
+		} finally {
+			// Reopen whichever file is in place; offsets change only if the swap succeeded.
+			channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			end = channel.size();
+			windowStart = -1;
+		}
+		for (int i = 0; i < n; i++) primary.get(order.get(i)).offset = offsets[i];
+		garbage = 0;
+		writeIndex();
+	}
+
+	// 64-bit digest of a title's chars (FNV-1a, then a murmur3 finalizer). Unlike String.hashCode, edits
+	// such as "Aa" -> "BB" change it; an accidental collision between two versions of one task's title is
+	// about a 2^-64 chance.
+	static long digest(String title) {
+		long h = 0xCBF29CE484222325L;
+		for (int i = 0; i < title.length(); i++) {
+			h ^= title.charAt(i);
+			h *= 0x100000001B3L;
+		}
+		h ^= title.length();
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		return h ^ (h >>> 33);
+	}
+
+	// Ids in list order with O(1) append, O(log N) removal and O(log N) positional access for paging.
+	// Removed ids leave holes that a Fenwick tree of live counts skips over; the array is packed once
+	// holes outnumber live ids.
+	static final class OrderedIds extends AbstractList<String> {
+		private String[] ids = new String[16];
+		private int[] tree = new int[17]; // Fenwick tree over ids: live count per range
+		private int end = 0;              // slots used, live or not
+		private int live = 0;
+		private final HashMap<String, Integer> slotOf = new HashMap<>();
+
+		@Override
+		public boolean add(String id) {
+			if (end == ids.length) rebuild(ids.length * 2);
+			ids[end] = id;
+			slotOf.put(id, end);
+			bump(end, 1);
+			end++;
+			live++;
+			return true;
+		}
+
+		@Override
+		public boolean remove(Object id) {
+			Integer slot = slotOf.remove(id);
+			if (slot == null) return false;
+			ids[slot] = null;
+			bump(slot, -1);
+			live--;
+			if (end - live > Math.max(64, live)) rebuild(ids.length);
+			return true;
+		}
+
+		// The index-th live id: descend the tree for the slot with index live ids before it.
+		@Override
+		public String get(int index) {
+			if (index < 0 || index >= live) throw new IndexOutOfBoundsException(index);
+			int pos = 0;
+			for (int step = Integer.highestOneBit(ids.length); step > 0; step >>= 1) {
+				if (pos + step <= ids.length && tree[pos + step] <= index) {
+					pos += step;
+					index -= tree[pos];
+				}
+			}
+			return ids[pos];
+		}
+
+		@Override
+		public int size() {
+			return live;
+		}
+
+		@Override
+		public void clear() {
+			ids = new String[16];
+			tree = new int[17];
+			end = 0;
+			live = 0;
+			slotOf.clear();
+		}
+
+		@Override
+		public Iterator<String> iterator() {
+			return new Iterator<String>() {
+				private int next = skip(0);
+
+				private int skip(int i) {
+					while (i < end && ids[i] == null) i++;
+					return i;
+				}
+
+				public boolean hasNext() {
+					return next < end;
+				}
+
+				public String next() {
+					if (next >= end) throw new NoSuchElementException();
+					String id = ids[next];
+					next = skip(next + 1);
+					return id;
+				}
+			};
+		}
+
+		private void bump(int slot, int delta) {
+			for (int i = slot + 1; i < tree.length; i += i & -i) tree[i] += delta;
+		}
+
+		// Pack live ids to the front of an array of the given capacity and rebuild the tree.
+		private void rebuild(int capacity) {
+			String[] packed = new String[Math.max(16, capacity)];
+			int n = 0;
+			for (int i = 0; i < end; i++) {
+				if (ids[i] != null) {
+					packed[n] = ids[i];
+					slotOf.put(ids[i], n);
+					n++;
+				}
+			}
+			ids = packed;
+			end = n;
+			tree = new int[packed.length + 1];
+			for (int i = 1; i <= n; i++) {
+				tree[i]++;
+				int parent = i + (i & -i);
+				if (parent < tree.length) tree[parent] += tree[i];
+			}
+		}
+	}
+
+	// Payload: byte op, byte flags (bit 0 done, bit 1 timestamps), short id length, id,
+	// int title length, title (UTF-8), then with bit 1: long createdAt, long completedAt.
+	private static ByteBuffer encode(byte op, Task t) {
+		byte[] idBytes = t.getId().getBytes(StandardCharsets.UTF_8);
+		byte[] titleBytes = t.getTitle().getBytes(StandardCharsets.UTF_8);
+		boolean times = t.getCreatedAt() != 0 || t.getCompletedAt() != 0;
+		int len = 1 + 1 + 2 + idBytes.length + 4 + titleBytes.length + (times ? 16 : 0);
+		ByteBuffer bb = ByteBuffer.allocate(FRAME + len);
+		bb.putInt(len).put(op).put((byte) ((t.isDone() ? 1 : 0) | (times ? 2 : 0)))
+				.putShort((short) idBytes.length).put(idBytes)
+				.putInt(titleBytes.length).put(titleBytes);
+		if (times) bb.putLong(t.getCreatedAt()).putLong(t.getCompletedAt());
+		CRC32 crc = new CRC32();
+		crc.update(bb.array(), 4, len);
+		bb.putLong(crc.getValue()).flip();
+		return bb;
+	}
+
+	// Decode a payload starting at the buffer's position.
+	private static Task decode(ByteBuffer bb) {
+		byte[] a = bb.array();
+		int p = bb.arrayOffset() + bb.position();
+		boolean done = (a[p + 1] & 1) != 0;
+		int idLen = ((a[p + 2] & 0xFF) << 8) | (a[p + 3] & 0xFF);
+		String id = new String(a, p + 4, idLen, StandardCharsets.UTF_8);
+		int tp = p + 4 + idLen;
+		int titleLen = ((a[tp] & 0xFF) << 24) | ((a[tp + 1] & 0xFF) << 16) | ((a[tp + 2] & 0xFF) << 8) | (a[tp + 3] & 0xFF);
+		String title = new String(a, tp + 4, titleLen, StandardCharsets.UTF_8);
+		if ((a[p + 1] & 2) == 0) return new Task(id, title, done);
+		ByteBuffer times = ByteBuffer.wrap(a, tp + 4 + titleLen, 16);
+		return new Task(id, title, done, times.getLong(), times.getLong());
+	}
+}
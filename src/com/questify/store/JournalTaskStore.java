@@ -0,0 +1,328 @@
+package com.questify.store;
+
+import com.questify.model.Task;
+import com.questify.util.AtomicFiles;
+import com.questify.util.AtomicFiles.Durability;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+// Append-only TaskStore: each mutation is one journal record, replayed on load and compacted in the background.
+// Record payload: byte op, UTF id, UTF title, boolean done, then long createdAt and long completedAt;
+// records written before timestamps existed end after done. With OP_LONG_STRINGS set in op, id and
+// title are each an int length and UTF-8 bytes instead, for strings writeUTF cannot hold; only those
+// records use it, so other records stay readable by older builds.
+public class JournalTaskStore implements TaskStore, Closeable {
+	private static final byte OP_UPSERT = 1;
+	private static final byte OP_DELETE = 2;
+	private static final int OP_LONG_STRINGS = 0x40;
+	// Longest string writeUTF takes whatever its characters: at most 3 bytes each in 65535.
+	private static final int UTF_SAFE_CHARS = 65535 / 3;
+
+	// Compact once the journal holds this many records and at least twice the live task count.
+	private static final int DEFAULT_COMPACT_THRESHOLD = 1000;
+
+	private final Path file;
+	private final int compactThreshold;
+	private final Durability durability;
+	private final LinkedHashMap<String, Task> state = new LinkedHashMap<>();
+	private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "questify-journal-compactor");
+		t.setDaemon(true);
+		return t;
+	});
+
+	private FileChannel out;
+	private boolean replayed = false;
+	private boolean compactPending = false;
+	private int recordCount = 0;
+	// Records appended while a compaction writes its snapshot, to be copied after it; null otherwise.
+	private List<ByteBuffer> compactTail;
+
+	public JournalTaskStore(Path file) {
+		this(file, DEFAULT_COMPACT_THRESHOLD, Durability.FILE);
+	}
+
+	public JournalTaskStore(Path file, Durability durability) {
+		this(file, DEFAULT_COMPACT_THRESHOLD, durability);
+	}
+
+	// With Durability.NONE appends are left to the OS; otherwise each append is fsynced.
+	public JournalTaskStore(Path file, int compactThreshold, Durability durability) {
+		this.file = file;
+		this.compactThreshold = compactThreshold;
+		this.durability = durability;
+	}
+
+	@Override
+	public synchronized List<Task> loadTasks() throws IOException {
+		replay();
+		List<Task> out = new ArrayList<>(state.size());
+		for (Task t : state.values()) out.add(t.copy());
+		return out;
+	}
+
+	// Append only the records that differ from the last known state.
+	@Override
+	public synchronized void saveTasks(List<Task> tasks) throws IOException {
+		replay();
+		Set<String> seen = new HashSet<>(tasks.size() * 2);
+		for (Task t : tasks) {
+			seen.add(t.getId());
+			Task prev = state.get(t.getId());
+			if (prev == null || prev.isDone() != t.isDone() || !prev.getTitle().equals(t.getTitle())
+					|| prev.getCompletedAt() != t.getCompletedAt() || prev.getCreatedAt() != t.getCreatedAt()) {
+				upsert(t);
+			}
+		}
+		List<String> removed = new ArrayList<>();
+		for (String id : state.keySet()) {
+			if (!seen.contains(id)) removed.add(id);
+		}
+		for (String id : removed) delete(id);
+	}
+
+	@Override
+	public boolean supportsRecordUpdates() {
+		return true;
+	}
+
+	// Add or replace a single task.
+	@Override
+	public synchronized void upsert(Task t) throws IOException {
+		replay();
+		append(OP_UPSERT, t);
+		apply(OP_UPSERT, t.copy());
+		maybeCompact();
+	}
+
+	// Replace a single existing task.
+	@Override
+	public synchronized boolean update(Task t) throws IOException {
+		replay();
+		if (!state.containsKey(t.getId())) return false;
+		upsert(t);
+		return true;
+	}
+
+	// Remove a single task by id.
+	@Override
+	public synchronized void delete(String id) throws IOException {
+		replay();
+		if (!state.containsKey(id)) return;
+		Task gone = new Task(id, "", false);
+		append(OP_DELETE, gone);
+		apply(OP_DELETE, gone);
+		maybeCompact();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		compactor.shutdown();
+		if (out != null) {
+			out.close();
+			out = null;
+		}
+	}
+
+	// Read the journal once; a torn or corrupt tail is truncated away. If reading fails the partial state is
+	// dropped and the next call reads again, so nothing can compact a half-read journal over the full one.
+	private void replay() throws IOException {
+		if (replayed) return;
+		boolean ok = false;
+		try {
+			if (Files.exists(file)) readJournal();
+			ok = true;
+		} finally {
+			if (!ok) {
+				state.clear();
+				recordCount = 0;
+			}
+		}
+		replayed = true;
+	}
+
+	private void readJournal() throws IOException {
+		long good = 0;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			CRC32 crc = new CRC32();
+			while (true) {
+				int len;
+				try {
+					len = in.readInt();
+				} catch (EOFException e) {
+					break;
+				}
+				if (len <= 0 || len > (1 << 24)) break;
+				byte[] payload = new byte[len];
+				long stored;
+				try {
+					in.readFully(payload);
+					stored = in.readLong();
+				} catch (EOFException e) {
+					break;
+				}
+				crc.reset();
+				crc.update(payload);
+				if (crc.getValue() != stored) break;
+
+				DataInputStream rec = new DataInputStream(new ByteArrayInputStream(payload));
+				int flags = rec.readByte();
+				byte op = (byte) (flags & ~OP_LONG_STRINGS);
+				boolean longStrings = (flags & OP_LONG_STRINGS) != 0;
+				String id = longStrings ? readLongString(rec) : rec.readUTF();
+				String title = longStrings ? readLongString(rec) : rec.readUTF();
+				boolean done = rec.readBoolean();
+				long createdAt = 0, completedAt = 0;
+				if (rec.available() >= 16) {
+					createdAt = rec.readLong();
+					completedAt = rec.readLong();
+				}
+				apply(op, new Task(id, title, done, createdAt, completedAt));
+				recordCount++;
+				good += 4 + len + 8;
+			}
+		}
+		if (good < Files.size(file)) {
+			try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+				ch.truncate(good);
+			}
+		}
+	}
+
+	// t becomes part of the state, so callers pass a task nobody else holds.
+	private void apply(byte op, Task t) {
+		String id = t.getId();
+		if (op == OP_DELETE) {
+			state.remove(id);
+			return;
+		}
+		Task prev = state.get(id);
+		if (prev != null && prev.isDone() != t.isDone()) {
+			// Toggled tasks move to the end of their new list, mirroring the UI.
+			state.remove(id);
+		}
+		state.put(id, t);
+	}
+
+	private void append(byte op, Task t) throws IOException {
+		ByteBuffer bb = encode(op, t);
+		if (compactTail != null) compactTail.add(bb.duplicate());
+		FileChannel ch = channel();
+		while (bb.hasRemaining()) ch.write(bb);
+		if (durability != Durability.NONE) ch.force(false);
+		recordCount++;
+	}
+
+	// Frame one record as [length][payload][crc32].
+	private static ByteBuffer encode(byte op, Task t) throws IOException {
+		ByteArrayOutputStream buf = new ByteArrayOutputStream(80 + t.getTitle().length());
+		DataOutputStream rec = new DataOutputStream(buf);
+		if (t.getId().length() > UTF_SAFE_CHARS || t.getTitle().length() > UTF_SAFE_CHARS) {
+			rec.writeByte(op | OP_LONG_STRINGS);
+			writeLongString(rec, t.getId());
+			writeLongString(rec, t.getTitle());
+		} else {
+			rec.writeByte(op);
+			rec.writeUTF(t.getId());
+			rec.writeUTF(t.getTitle());
+		}
+		rec.writeBoolean(t.isDone());
+		rec.writeLong(t.getCreatedAt());
+		rec.writeLong(t.getCompletedAt());
+		byte[] payload = buf.toByteArray();
+
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		ByteBuffer bb = ByteBuffer.allocate(4 + payload.length + 8);
+		bb.putInt(payload.length).put(payload).putLong(crc.getValue()).flip();
+		return bb;
+	}
+
+	private static void writeLongString(DataOutputStream out, String s) throws IOException {
+		byte[] b = s.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(b.length);
+		out.write(b);
+	}
+
+	private static String readLongString(DataInputStream in) throws IOException {
+		int len = in.readInt();
+		if (len < 0 || len > in.available()) throw new EOFException("String runs past its record");
+		byte[] b = new byte[len];
+		in.readFully(b);
+		return new String(b, StandardCharsets.UTF_8);
+	}
+
+	private FileChannel channel() throws IOException {
+		if (out == null) {
+			Files.createDirectories(file.getParent());
+			out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		}
+		return out;
+	}
+
+	private void maybeCompact() {
+		if (compactPending) return;
+		if (recordCount < compactThreshold || recordCount < state.size() * 2) return;
+		compactPending = true;
+		compactor.execute(() -> {
+			try {
+				compact();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		});
+	}
+
+	// Rewrite the journal as one upsert per live task and swap it in. The lock is held only to take the
+	// snapshot and, at the end, to copy the records appended meanwhile and rename the new file over the
+	// old, so appends carry on while the bulk of it is written.
+	private void compact() throws IOException {
+		List<Task> snapshot;
+		synchronized (this) {
+			compactPending = false;
+			// State tasks are never changed in place, only replaced, so sharing them is safe.
+			snapshot = new ArrayList<>(state.values());
+			compactTail = new ArrayList<>();
+		}
+		Path dir = file.toAbsolutePath().getParent();
+		Path tmp = Files.createTempFile(dir, "." + file.getFileName(), ".tmp");
+		// Closed before the rename, which Windows refuses while the file is open.
+		FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			OutputStream os = new BufferedOutputStream(Channels.newOutputStream(ch), 64 * 1024);
+			for (Task t : snapshot) {
+				ByteBuffer bb = encode(OP_UPSERT, t);
+				os.write(bb.array(), 0, bb.limit());
+			}
+			os.flush();
+			if (durability != Durability.NONE) ch.force(false);
+			synchronized (this) {
+				for (ByteBuffer bb : compactTail) os.write(bb.array(), 0, bb.limit());
+				os.flush();
+				if (durability != Durability.NONE) ch.force(false);
+				ch.close();
+				if (out != null) {
+					out.close();
+					out = null;
+				}
+				AtomicFiles.commit(tmp, file, durability);
+				recordCount = snapshot.size() + compactTail.size();
+			}
+		} finally {
+			ch.close();
+			synchronized (this) {
+				compactTail = null;
+			}
+			Files.deleteIfExists(tmp);
+		}
+	}
+}
@@ -0,0 +1,373 @@
+package com.questify.store;
+
+import com.questify.model.Task;
+import com.questify.util.AtomicFiles;
+import com.questify.util.AtomicFiles.Durability;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// TaskStore over a memory-mapped file of fixed-size slots, so one task is changed in place
+// without touching any other record. Deleted slots go on a free list and are reused.
+//
+// Layout: a 64-byte header (int magic "QTSM", short version, short slot size, int capacity),
+// then capacity slots of SLOT_SIZE bytes:
+//   byte state (0 free, 1 used), byte flags (bit 0 done, bit 1 long title), byte id length, byte reserved,
+//   long sequence (list order), id bytes [ID_MAX], short title length, title bytes [TITLE_MAX],
+//   long createdAt, long completedAt (epoch ms, in the last 16 bytes of the slot).
+// A title longer than TITLE_MAX bytes of UTF-8 is kept whole in a side file (<file>.titles: int count,
+// then UTF id, int length, UTF-8 title per entry), rewritten whenever one changes; the slot holds its
+// first TITLE_MAX bytes and the long-title flag. Without the side file such a title reads as that prefix.
+// Version 1 slots had no timestamps and a longer title area; they are upgraded in place on open.
+public class MappedTaskStore implements TaskStore, Closeable {
+	static final int MAGIC = 0x5154534D; // "QTSM"
+	static final short VERSION = 2;
+
+	private static final int HEADER_SIZE = 64;
+	static final int SLOT_SIZE = 512;
+	private static final int ID_MAX = 64;
+	private static final int OFF_STATE = 0;
+	private static final int OFF_FLAGS = 1;
+	private static final int FLAG_DONE = 1;
+	private static final int FLAG_LONG_TITLE = 2;
+	private static final int OFF_ID_LEN = 2;
+	private static final int OFF_SEQ = 4;
+	private static final int OFF_ID = 12;
+	private static final int OFF_TITLE_LEN = OFF_ID + ID_MAX;
+	private static final int OFF_TITLE = OFF_TITLE_LEN + 2;
+	private static final int OFF_CREATED = SLOT_SIZE - 16;
+	private static final int OFF_COMPLETED = SLOT_SIZE - 8;
+	static final int TITLE_MAX = OFF_CREATED - OFF_TITLE;
+	private static final int INITIAL_CAPACITY = 1024;
+	// A MappedByteBuffer is indexed by int, so the whole file has to stay under 2 GB.
+	static final int MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_SIZE) / SLOT_SIZE;
+
+	private final Path file;
+	private final Path titlesFile;
+	private final Durability durability;
+	// Full text of titles too long for their slot, by task id.
+	private final HashMap<String, String> longTitles = new HashMap<>();
+
+	private FileChannel channel;
+	private MappedByteBuffer map;
+	private int capacity;
+	private long nextSeq = 1;
+	private final HashMap<String, Integer> index = new HashMap<>();
+	private final ArrayDeque<Integer> free = new ArrayDeque<>();
+
+	public MappedTaskStore(Path file) {
+		this(file, Durability.FILE);
+	}
+
+	// With Durability.NONE dirty pages are left to the OS; otherwise each changed slot is forced.
+	public MappedTaskStore(Path file, Durability durability) {
+		this.file = file;
+		this.titlesFile = file.resolveSibling(file.getFileName() + ".titles");
+		this.durability = durability;
+	}
+
+	@Override
+	public boolean supportsRecordUpdates() {
+		return true;
+	}
+
+	@Override
+	public synchronized List<Task> loadTasks() throws IOException {
+		open();
+		int n = index.size();
+		long[] order = new long[n];
+		int k = 0;
+		for (int slot : index.values()) {
+			// Sequence in the high bits, slot in the low bits: one primitive sort restores list order.
+			order[k++] = (map.getLong(offset(slot) + OFF_SEQ) << 24) | slot;
+		}
+		Arrays.sort(order);
+		List<Task> out = new ArrayList<>(n);
+		for (long o : order) out.add(read((int) (o & 0xFFFFFF)));
+		return out;
+	}
+
+	// Apply the snapshot as per-record changes: only tasks that differ are written.
+	@Override
+	public synchronized void saveTasks(List<Task> tasks) throws IOException {
+		open();
+		Set<String> seen = new HashSet<>(tasks.size() * 2);
+		for (Task t : tasks) {
+			seen.add(t.getId());
+			Integer slot = index.get(t.getId());
+			if (slot == null || !matches(slot, t)) upsert(t);
+		}
+		List<String> removed = new ArrayList<>();
+		for (String id : index.keySet()) {
+			if (!seen.contains(id)) removed.add(id);
+		}
+		for (String id : removed) delete(id);
+	}
+
+	@Override
+	public synchronized void upsert(Task t) throws IOException {
+		open();
+		Integer slot = index.get(t.getId());
+		if (slot != null) {
+			write(slot, t, false);
+			return;
+		}
+		byte[] id = t.getId().getBytes(StandardCharsets.UTF_8);
+		if (id.length > ID_MAX) throw new IOException("Task id longer than " + ID_MAX + " bytes");
+		int s = allocate();
+		write(s, t, true);
+		index.put(t.getId(), s);
+	}
+
+	@Override
+	public synchronized boolean update(Task t) throws IOException {
+		open();
+		Integer slot = index.get(t.getId());
+		if (slot == null) return false;
+		write(slot, t, false);
+		return true;
+	}
+
+	@Override
+	public synchronized void delete(String id) throws IOException {
+		open();
+		Integer slot = index.remove(id);
+		if (slot == null) return;
+		map.put(offset(slot) + OFF_STATE, (byte) 0);
+		force(slot);
+		free.push(slot);
+		if (longTitles.remove(id) != null) saveLongTitles();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (channel == null) return;
+		if (durability != Durability.NONE) map.force();
+		channel.close();
+		channel = null;
+		map = null;
+	}
+
+	// Map the file, creating it if needed, and rebuild the id index and free list.
+	private void open() throws IOException {
+		if (channel != null) return;
+		Files.createDirectories(file.toAbsolutePath().getParent());
+		boolean fresh = !Files.exists(file) || Files.size(file) < HEADER_SIZE;
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		if (fresh) {
+			remap(INITIAL_CAPACITY);
+			writeHeader();
+			return;
+		}
+		loadLongTitles();
+
+		MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+		if (header.getInt(0) == 0 && header.getShort(4) == 0 && isWholeSlots(channel.size())) {
+			// The file was sized but its header never reached the disk before a crash; slots written
+			// since are intact, so restore the header rather than refuse the file.
+			remap((int) Math.min(MAX_CAPACITY, (channel.size() - HEADER_SIZE) / SLOT_SIZE));
+			writeHeader();
+			header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+		}
+		if (header.getInt(0) != MAGIC) throw new IOException("Not a Questify slot file");
+		short version = header.getShort(4);
+		if (version < 1 || version > VERSION || header.getShort(6) != SLOT_SIZE) {
+			throw new IOException("Unsupported slot file version " + version);
+		}
+		// Growth forces the new capacity into the header, but a crash can still leave an older value
+		// behind slots already in the file; whatever whole slots the file holds are read.
+		int headerCapacity = header.getInt(8);
+		long fileSlots = (channel.size() - HEADER_SIZE) / SLOT_SIZE;
+		if (headerCapacity <= 0 || headerCapacity > MAX_CAPACITY) {
+			throw new IOException("Bad slot file capacity " + headerCapacity);
+		}
+		remap((int) Math.min(MAX_CAPACITY, Math.max(headerCapacity, fileSlots)));
+		if (version == 1) upgradeFromV1();
+		free.clear();
+		for (int s = capacity - 1; s >= 0; s--) {
+			int off = offset(s);
+			if (map.get(off + OFF_STATE) == 1) {
+				index.put(readId(off), s);
+				nextSeq = Math.max(nextSeq, map.getLong(off + OFF_SEQ) + 1);
+			} else {
+				free.push(s);
+			}
+		}
+	}
+
+	// Version 1 titles could run into what is now the timestamp area. Those titles move to the side file
+	// whole, which is written before any slot changes, so a crash midway leaves a file that upgrades again;
+	// their slots keep the first TITLE_MAX bytes and get the long-title flag. Times start at zero.
+	private void upgradeFromV1() throws IOException {
+		boolean moved = false;
+		for (int s = 0; s < capacity; s++) {
+			int off = offset(s);
+			if (map.get(off + OFF_STATE) == 1 && map.getShort(off + OFF_TITLE_LEN) > TITLE_MAX) {
+				byte[] title = new byte[map.getShort(off + OFF_TITLE_LEN)];
+				map.get(off + OFF_TITLE, title);
+				longTitles.put(readId(off), new String(title, StandardCharsets.UTF_8));
+				moved = true;
+			}
+		}
+		if (moved) saveLongTitles();
+		for (int s = 0; s < capacity; s++) {
+			int off = offset(s);
+			if (map.get(off + OFF_STATE) == 1) {
+				int len = map.getShort(off + OFF_TITLE_LEN);
+				if (len > TITLE_MAX) {
+					byte[] title = new byte[len];
+					map.get(off + OFF_TITLE, title);
+					map.putShort(off + OFF_TITLE_LEN, (short) fitTitle(title).length);
+					map.put(off + OFF_FLAGS, (byte) (map.get(off + OFF_FLAGS) | FLAG_LONG_TITLE));
+				}
+			}
+			map.putLong(off + OFF_CREATED, 0);
+			map.putLong(off + OFF_COMPLETED, 0);
+		}
+		map.putShort(4, VERSION);
+		if (durability != Durability.NONE) map.force();
+	}
+
+	// Forced whatever the durability, so no slot can reach the disk ahead of the magic that makes the
+	// file readable.
+	private void writeHeader() {
+		map.putInt(0, MAGIC);
+		map.putShort(4, VERSION);
+		map.putShort(6, (short) SLOT_SIZE);
+		map.putInt(8, capacity);
+		map.force(0, HEADER_SIZE);
+	}
+
+	private static boolean isWholeSlots(long size) {
+		return size > HEADER_SIZE && (size - HEADER_SIZE) % SLOT_SIZE == 0;
+	}
+
+	// The new capacity is forced into the header before any of the new slots can be handed out, so a
+	// slot written past the old capacity is never lost to a stale header.
+	private void remap(int newCapacity) throws IOException {
+		map = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) newCapacity * SLOT_SIZE);
+		map.putInt(8, newCapacity);
+		map.force(0, HEADER_SIZE);
+		for (int s = newCapacity - 1; s >= capacity; s--) free.push(s);
+		capacity = newCapacity;
+	}
+
+	private int allocate() throws IOException {
+		if (free.isEmpty()) {
+			if (capacity >= MAX_CAPACITY) throw new IOException("Slot file is full (" + capacity + " slots)");
+			remap((int) Math.min(MAX_CAPACITY, capacity * 2L));
+		}
+		// Lowest free slot first keeps the file dense.
+		return free.pop();
+	}
+
+	// Write a task into a slot. A new slot is marked used last, so a torn write leaves it free. A long
+	// title reaches the side file before the slot that points to it.
+	private void write(int slot, Task t, boolean fresh) throws IOException {
+		int off = offset(slot);
+		boolean wasDone = !fresh && (map.get(off + OFF_FLAGS) & FLAG_DONE) != 0;
+		byte[] full = t.getTitle().getBytes(StandardCharsets.UTF_8);
+		boolean longTitle = full.length > TITLE_MAX;
+		if (longTitle && !t.getTitle().equals(longTitles.put(t.getId(), t.getTitle()))) saveLongTitles();
+		if (fresh || wasDone != t.isDone()) {
+			// New and toggled tasks go to the end of their list, mirroring the UI.
+			map.putLong(off + OFF_SEQ, nextSeq++);
+		}
+		if (fresh) {
+			byte[] id = t.getId().getBytes(StandardCharsets.UTF_8);
+			map.put(off + OFF_ID_LEN, (byte) id.length);
+			map.put(off + OFF_ID, id);
+		}
+		byte[] title = fitTitle(full);
+		map.put(off + OFF_TITLE, title);
+		map.putShort(off + OFF_TITLE_LEN, (short) title.length);
+		map.putLong(off + OFF_CREATED, t.getCreatedAt());
+		map.putLong(off + OFF_COMPLETED, t.getCompletedAt());
+		map.put(off + OFF_FLAGS, (byte) ((t.isDone() ? FLAG_DONE : 0) | (longTitle ? FLAG_LONG_TITLE : 0)));
+		if (fresh) map.put(off + OFF_STATE, (byte) 1);
+		force(slot);
+		if (!longTitle && longTitles.remove(t.getId()) != null) saveLongTitles();
+	}
+
+	private boolean matches(int slot, Task t) {
+		int off = offset(slot);
+		int flags = map.get(off + OFF_FLAGS);
+		if (((flags & FLAG_DONE) != 0) != t.isDone()) return false;
+		if (map.getLong(off + OFF_COMPLETED) != t.getCompletedAt() || map.getLong(off + OFF_CREATED) != t.getCreatedAt()) return false;
+		if ((flags & FLAG_LONG_TITLE) != 0) return t.getTitle().equals(longTitles.get(t.getId()));
+		byte[] title = t.getTitle().getBytes(StandardCharsets.UTF_8);
+		if (map.getShort(off + OFF_TITLE_LEN) != title.length) return false;
+		for (int i = 0; i < title.length; i++) {
+			if (map.get(off + OFF_TITLE + i) != title[i]) return false;
+		}
+		return true;
+	}
+
+	private Task read(int slot) {
+		int off = offset(slot);
+		byte[] title = new byte[map.getShort(off + OFF_TITLE_LEN)];
+		map.get(off + OFF_TITLE, title);
+		int flags = map.get(off + OFF_FLAGS);
+		String id = readId(off);
+		String full = (flags & FLAG_LONG_TITLE) != 0 ? longTitles.get(id) : null;
+		return new Task(id, full != null ? full : new String(title, StandardCharsets.UTF_8), (flags & FLAG_DONE) != 0,
+				map.getLong(off + OFF_CREATED), map.getLong(off + OFF_COMPLETED));
+	}
+
+	private void loadLongTitles() {
+		longTitles.clear();
+		if (!Files.exists(titlesFile)) return;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(titlesFile)))) {
+			for (int n = in.readInt(); n > 0; n--) {
+				String id = in.readUTF();
+				byte[] title = new byte[in.readInt()];
+				in.readFully(title);
+				longTitles.put(id, new String(title, StandardCharsets.UTF_8));
+			}
+		} catch (IOException e) {
+			// The slots still hold each title's first TITLE_MAX bytes.
+			e.printStackTrace();
+		}
+	}
+
+	private void saveLongTitles() throws IOException {
+		AtomicFiles.write(titlesFile, durability, os -> {
+			DataOutputStream out = new DataOutputStream(os);
+			out.writeInt(longTitles.size());
+			for (Map.Entry<String, String> e : longTitles.entrySet()) {
+				out.writeUTF(e.getKey());
+				byte[] title = e.getValue().getBytes(StandardCharsets.UTF_8);
+				out.writeInt(title.length);
+				out.write(title);
+			}
+			out.flush();
+		});
+	}
+
+	private String readId(int off) {
+		byte[] id = new byte[map.get(off + OFF_ID_LEN) & 0xFF];
+		map.get(off + OFF_ID, id);
+		return new String(id, StandardCharsets.UTF_8);
+	}
+
+	private void force(int slot) {
+		if (durability != Durability.NONE) map.force(offset(slot), SLOT_SIZE);
+	}
+
+	// Cannot overflow: capacity never exceeds MAX_CAPACITY.
+	private static int offset(int slot) {
+		return HEADER_SIZE + slot * SLOT_SIZE;
+	}
+
+	// UTF-8 title cut to TITLE_MAX bytes without splitting a character: what a slot holds of a long title.
+	private static byte[] fitTitle(byte[] b) {
+		if (b.length <= TITLE_MAX) return b;
+		int end = TITLE_MAX;
+		while (end > 0 && (b[end] & 0xC0) == 0x80) end--;
+		return Arrays.copyOf(b, end);
+	}
+}
@@ -0,0 +1,126 @@
+package com.questify.store;
+
+import com.questify.diag.SaveEvent;
+import com.questify.model.Task;
+import com.questify.util.WriteBehind;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.*;
+
+// Single-writer save queue: snapshots are debounced by a WriteBehind, so a burst of edits collapses into
+// a single save of the newest. Per-record writes and reads share its thread, so they run in submission
+// order and never overlap a save.
+public class SaveScheduler {
+
+	// One per-record change, such as store.upsert(task).
+	public interface RecordWrite {
+		void apply(TaskStore store) throws Exception;
+	}
+
+	// A query answered from the store, such as store.loadTasks(true, from, max).
+	public interface RecordRead<T> {
+		T apply(TaskStore store) throws Exception;
+	}
+
+	private final TaskStore store;
+	private final WriteBehind<List<Task>> writer;
+	private volatile long lastWriteNanos = -1;
+
+	public SaveScheduler(TaskStore store, long delayMs) {
+		this.store = store;
+		this.writer = new WriteBehind<>("questify-task-writer", delayMs, this::save);
+	}
+
+	// Queue a snapshot; it replaces any snapshot not yet written and pushes the save back by the delay.
+	// After close() the snapshot is dropped.
+	public void submit(List<Task> snapshot) {
+		writer.submit(snapshot);
+	}
+
+	// Run a per-record write on the writer thread, after everything submitted before it.
+	public void submitRecord(RecordWrite write) {
+		try {
+			writer.execute(() -> {
+				SaveEvent event = new SaveEvent();
+				event.begin();
+				long start = System.nanoTime();
+				try {
+					write.apply(store);
+				} catch (Exception e) {
+					e.printStackTrace();
+				}
+				finished(event, start, "record", 1);
+			});
+		} catch (RejectedExecutionException e) {
+			e.printStackTrace();
+		}
+	}
+
+	// Run a read on the writer thread after everything submitted before it, so it sees those writes.
+	public <T> CompletableFuture<T> read(RecordRead<T> read) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		try {
+			writer.execute(() -> {
+				try {
+					result.complete(read.apply(store));
+				} catch (Exception e) {
+					result.completeExceptionally(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			result.completeExceptionally(e);
+		}
+		return result;
+	}
+
+	// Write any pending snapshot now and wait for it and all queued record writes; used on window close.
+	public void flush() {
+		writer.flush();
+	}
+
+	// Flush, stop the writer thread and release the store's file handles.
+	public void close() {
+		writer.close();
+		if (store instanceof Closeable) {
+			try {
+				((Closeable) store).close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+
+	// How long the most recent save or record write took, or -1 before the first.
+	public long getLastWriteNanos() {
+		return lastWriteNanos;
+	}
+
+	// Sequence number of the newest snapshot written to disk.
+	public long getSavedSeq() {
+		return writer.getSavedSeq();
+	}
+
+	// Runs on the writer thread.
+	private void save(List<Task> snapshot) throws Exception {
+		SaveEvent event = new SaveEvent();
+		event.begin();
+		long start = System.nanoTime();
+		try {
+			store.saveTasks(snapshot);
+		} finally {
+			finished(event, start, "snapshot", snapshot.size());
+		}
+	}
+
+	private void finished(SaveEvent event, long start, String kind, int records) {
+		lastWriteNanos = System.nanoTime() - start;
+		event.end();
+		if (!event.shouldCommit()) return;
+		event.kind = kind;
+		event.store = store.getClass().getSimpleName();
+		event.records = records;
+		event.commit();
+	}
+}
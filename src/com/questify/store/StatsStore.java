@@ -0,0 +1,104 @@
+package com.questify.store;
+
+import com.questify.diag.StoreIoEvent;
+import com.questify.model.TaskStats;
+import com.questify.util.AtomicFiles;
+import com.questify.util.AtomicFiles.Durability;
+import com.questify.util.WriteBehind;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.util.zip.CRC32;
+
+// TaskStats saved beside tasks.txt, so startup need not count every task to show them:
+//   int magic, int version, int active, int done, long firstDay, int days, int[days] completions, int crc32
+// where the crc covers everything before it. Saves are written behind by a WriteBehind; a file that is
+// missing, damaged or from a newer version loads as null and the caller rebuilds the stats.
+public class StatsStore {
+	private static final int MAGIC = 0x51535453; // "QSTS"
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 28;
+
+	private final Path file;
+	private final Durability durability;
+	private final WriteBehind<TaskStats> writer;
+
+	public StatsStore(Path file) {
+		this(file, Durability.FILE);
+	}
+
+	public StatsStore(Path file, Durability durability) {
+		this.file = file;
+		this.durability = durability;
+		this.writer = new WriteBehind<>("questify-stats-writer", WriteBehind.DEFAULT_DELAY_MS, this::save);
+	}
+
+	// The saved stats, or null if there are none that can be trusted.
+	public TaskStats load() {
+		if (!Files.exists(file)) return null;
+		StoreIoEvent event = new StoreIoEvent();
+		event.begin();
+		try {
+			byte[] b = Files.readAllBytes(file);
+			if (b.length < HEADER_BYTES + 4) return null;
+			ByteBuffer bb = ByteBuffer.wrap(b);
+			CRC32 crc = new CRC32();
+			crc.update(b, 0, b.length - 4);
+			if (bb.getInt(b.length - 4) != (int) crc.getValue()) return null;
+			if (bb.getInt() != MAGIC || bb.getInt() != VERSION) return null;
+			int active = bb.getInt();
+			int done = bb.getInt();
+			long firstDay = bb.getLong();
+			int n = bb.getInt();
+			if (n < 0 || n != (b.length - HEADER_BYTES - 4) / 4) return null;
+			int[] days = new int[n];
+			bb.asIntBuffer().get(days);
+			TaskStats stats = new TaskStats();
+			stats.restore(active, done, firstDay, days);
+			commit(event, "load", b.length, active + done);
+			return stats;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	// Write stats, replacing the file; runs on the writer thread.
+	private void save(TaskStats stats) throws IOException {
+		StoreIoEvent event = new StoreIoEvent();
+		event.begin();
+		int[] days = stats.getDays();
+		ByteBuffer bb = ByteBuffer.allocate(HEADER_BYTES + days.length * 4 + 4);
+		bb.putInt(MAGIC).putInt(VERSION).putInt(stats.getActive()).putInt(stats.getDone());
+		bb.putLong(stats.getFirstDay()).putInt(days.length);
+		for (int d : days) bb.putInt(d);
+		CRC32 crc = new CRC32();
+		crc.update(bb.array(), 0, bb.position());
+		bb.putInt((int) crc.getValue());
+		AtomicFiles.write(file, durability, os -> os.write(bb.array()));
+		commit(event, "save", bb.capacity(), stats.getActive() + stats.getDone());
+	}
+
+	// Save a snapshot on the writer thread once edits pause; a newer snapshot replaces it meanwhile.
+	// The caller hands over the snapshot and must not change it afterwards.
+	public void submit(TaskStats snapshot) {
+		writer.submit(snapshot);
+	}
+
+	// Write any pending snapshot now and stop the writer; call before the app exits.
+	public void close() {
+		writer.close();
+	}
+
+	private void commit(StoreIoEvent event, String operation, long bytes, int records) {
+		event.end();
+		if (!event.shouldCommit()) return;
+		event.operation = operation;
+		event.store = "stats";
+		event.path = file.toString();
+		event.bytes = bytes;
+		event.records = records;
+		event.commit();
+	}
+}
@@ -1,10 +1,101 @@
 package com.questify.store;
 
 import com.questify.model.Task;
+import com.questify.util.Titles;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 //Interface for task persistence backends.
 public interface TaskStore {
     List<Task> loadTasks() throws Exception;
     void saveTasks(List<Task> tasks) throws Exception;
+
+    // Deliver tasks one at a time in stored order; streaming backends override this.
+    default void forEachTask(Consumer<? super Task> action) throws Exception {
+        for (Task t : loadTasks()) action.accept(t);
+    }
+
+    // True if upsert/update/delete touch only the affected record. The defaults below
+    // fall back to a full load and rewrite, so callers should prefer saveTasks when this is false.
+    default boolean supportsRecordUpdates() {
+        return false;
+    }
+
+    // Insert a task, or replace the stored task with the same id.
+    default void upsert(Task task) throws Exception {
+        List<Task> all = loadTasks();
+        if (!replace(all, task)) all.add(task);
+        saveTasks(all);
+    }
+
+    // Replace the stored task with the same id; returns false if there is none.
+    default boolean update(Task task) throws Exception {
+        List<Task> all = loadTasks();
+        if (!replace(all, task)) return false;
+        saveTasks(all);
+        return true;
+    }
+
+    // Remove the task with this id if present.
+    default void delete(String id) throws Exception {
+        List<Task> all = loadTasks();
+        if (all.removeIf(t -> t.getId().equals(id))) saveTasks(all);
+    }
+
+    // The stored task with this id, or null.
+    default Task get(String id) throws Exception {
+        for (Task t : loadTasks()) {
+            if (t.getId().equals(id)) return t;
+        }
+        return null;
+    }
+
+    // True if count, the windowed loadTasks and findByTitlePrefix below read only the requested tasks.
+    // The defaults scan every task, so callers should only page when this is true.
+    default boolean supportsPaging() {
+        return false;
+    }
+
+    // Number of active (done == false) or completed tasks.
+    default int count(boolean done) throws Exception {
+        int[] n = {0};
+        forEachTask(t -> {
+            if (t.isDone() == done) n[0]++;
+        });
+        return n[0];
+    }
+
+    // At most max active or completed tasks, starting at position from within that list.
+    default List<Task> loadTasks(boolean done, int from, int max) throws Exception {
+        List<Task> out = new ArrayList<>();
+        int[] pos = {0};
+        forEachTask(t -> {
+            if (t.isDone() != done) return;
+            int p = pos[0]++;
+            if (p >= from && out.size() < max) out.add(t);
+        });
+        return out;
+    }
+
+    // At most limit active or completed tasks whose title starts with prefix, ignoring case and
+    // surrounding whitespace (see Titles.searchKey).
+    default List<Task> findByTitlePrefix(boolean done, String prefix, int limit) throws Exception {
+        String key = Titles.searchKey(prefix);
+        List<Task> out = new ArrayList<>();
+        forEachTask(t -> {
+            if (t.isDone() == done && out.size() < limit && Titles.searchKey(t.getTitle()).startsWith(key)) out.add(t);
+        });
+        return out;
+    }
+
+    private static boolean replace(List<Task> all, Task task) {
+        for (int i = 0; i < all.size(); i++) {
+            if (all.get(i).getId().equals(task.getId())) {
+                all.set(i, task);
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -1,47 +1,233 @@
 package com.questify.store;
 
+import com.questify.diag.StoreIoEvent;
 import com.questify.model.Task;
+import com.questify.util.AtomicFiles;
+import com.questify.util.AtomicFiles.Durability;
 
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
 import java.io.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 // File-based TaskStore using a simple line format with a custom seperator.
-public class TextFileTaskStore implements TaskStore { 
+public class TextFileTaskStore implements TaskStore {
+	private static final byte[] SEP = "||SEP||".getBytes(StandardCharsets.US_ASCII);
+	private static final byte TIMES = '@'; // starts a task's timestamp line
+	private static final int BUFFER_SIZE = 64 * 1024;
+
 	private final Path file;
-	
+	private final Durability durability;
+
 	public TextFileTaskStore(Path file) {
+		this(file, Durability.FILE);
+	}
+
+	public TextFileTaskStore(Path file, Durability durability) {
 		this.file = file;
+		this.durability = durability;
 	}
-	
+
 	@Override
 	public List<Task> loadTasks() throws IOException{
-		if (!Files.exists(file)) return new ArrayList<>();
-		
-		List<String> lines = Files.readAllLines(file);
 		List<Task> out = new ArrayList<>();
-		
-		for (String line : lines) {
-			
-			// Line format: id||SEP||title||SEP||done
-            String[] parts = line.split("\\|\\|SEP\\|\\|", 3);
-            if (parts.length >= 3) {
-            	String id = parts[0];
-            	String title = parts[1];
-            	boolean done = Boolean.parseBoolean(parts[2]);
-            	out.add(new Task(id, title, done));
-            }
-		}
+		forEachTask(out::add);
 		return out;
 	}
-	
+
+	// Stream tasks in file order; memory is bounded by the read buffer (or the longest line).
 	@Override
-	public void saveTasks(List<Task> tasks) throws IOException {
-		List<String> lines = tasks.stream()
-				.map(t -> String.join("||SEP||", t.getId(), t.getTitle(), Boolean.toString(t.isDone())))
-				.collect(Collectors.toList());
-		Files.createDirectories(file.getParent());
-		Files.write(file, lines, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+	public void forEachTask(Consumer<? super Task> action) throws IOException {
+		if (!Files.exists(file)) return;
+
+		StoreIoEvent event = new StoreIoEvent();
+		event.begin();
+		int[] records = {0};
+		long bytes = 0;
+		Consumer<Task> counted = t -> {
+			records[0]++;
+			action.accept(t);
+		};
+		LineParser parser = new LineParser(counted);
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+			byte[] buf = new byte[BUFFER_SIZE];
+			int start = 0; // first byte of the current line
+			int scan = 0;  // next byte to check for a newline
+			int end = 0;   // end of valid data
+			while (true) {
+				int nl = indexOf(buf, (byte) '\n', scan, end);
+				if (nl >= 0) {
+					parser.line(buf, start, nl);
+					start = scan = nl + 1;
+					continue;
+				}
+				if (start > 0) {
+					System.arraycopy(buf, start, buf, 0, end - start);
+					end -= start;
+					start = 0;
+				}
+				if (end == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+				scan = end;
+				int n = ch.read(ByteBuffer.wrap(buf, end, buf.length - end));
+				if (n < 0) {
+					if (end > start) parser.line(buf, start, end);
+					break;
+				}
+				end += n;
+				bytes += n;
+			}
+		}
+		parser.finish();
+		// Includes the time action took, as the caller sees it.
+		commit(event, "load", bytes, records[0]);
+	}
+
+	// Line format: id||SEP||title||SEP||done, then, for a task with either timestamp known, a line
+	//   @createdAt,completedAt
+	// with no separator, which older builds skip as malformed, so they still read done correctly.
+	// Lines written before timestamps existed have none; a short-lived format had them as two more
+	// fields on the task line (id||SEP||title||SEP||done||SEP||createdAt||SEP||completedAt), still read.
+	// A task is held until the next line shows whether its timestamps follow.
+	private static final class LineParser {
+		private final Consumer<? super Task> action;
+		private final TitleCache titles = new TitleCache();
+		private String id;
+		private String title;
+		private boolean done;
+
+		LineParser(Consumer<? super Task> action) {
+			this.action = action;
+		}
+
+		void line(byte[] buf, int from, int to) {
+			if (to > from && buf[to - 1] == '\r') to--;
+			int s1 = indexOf(buf, SEP, from, to);
+			if (s1 < 0) {
+				int comma = indexOf(buf, (byte) ',', from, to);
+				if (id != null && comma >= 0 && buf[from] == TIMES) emit(parseLong(buf, from + 1, comma), parseLong(buf, comma + 1, to));
+				return;
+			}
+			int s2 = indexOf(buf, SEP, s1 + SEP.length, to);
+			if (s2 < 0) return;
+			finish();
+			id = new String(buf, from, s1 - from, StandardCharsets.UTF_8);
+			title = titles.get(buf, s1 + SEP.length, s2 - s1 - SEP.length);
+			int s3 = indexOf(buf, SEP, s2 + SEP.length, to);
+			int s4 = s3 < 0 ? -1 : indexOf(buf, SEP, s3 + SEP.length, to);
+			done = isTrue(buf, s2 + SEP.length, s3 < 0 ? to : s3);
+			if (s4 >= 0) emit(parseLong(buf, s3 + SEP.length, s4), parseLong(buf, s4 + SEP.length, to));
+		}
+
+		// Pass on the held task, if any, without timestamps.
+		void finish() {
+			if (id != null) emit(0, 0);
+		}
+
+		private void emit(long createdAt, long completedAt) {
+			Task t = new Task(id, title, done, createdAt, completedAt);
+			id = null;
+			title = null;
+			action.accept(t);
+		}
+	}
+
+	// Titles recently read, by a hash of their bytes. Habit titles repeat on many lines, so this decodes
+	// each once and lets its tasks share the String; being small and direct-mapped, it costs a file of
+	// one-off titles only a hash and a copy per line.
+	private static final class TitleCache {
+		private static final int SLOTS = 1024;
+		private final byte[][] bytes = new byte[SLOTS][];
+		private final String[] strings = new String[SLOTS];
+
+		String get(byte[] buf, int from, int n) {
+			int h = 1;
+			for (int i = from; i < from + n; i++) h = 31 * h + buf[i];
+			int s = (h ^ (h >>> 16)) & (SLOTS - 1);
+			byte[] b = bytes[s];
+			if (b != null && Arrays.equals(b, 0, b.length, buf, from, from + n)) return strings[s];
+			String title = new String(buf, from, n, StandardCharsets.UTF_8);
+			bytes[s] = Arrays.copyOfRange(buf, from, from + n);
+			strings[s] = title;
+			return title;
+		}
+	}
+
+	// Same result as Boolean.parseBoolean on the byte range, without building a String.
+	private static boolean isTrue(byte[] buf, int from, int to) {
+		if (to - from != 4) return false;
+		return (buf[from] | 0x20) == 't' && (buf[from + 1] | 0x20) == 'r'
+				&& (buf[from + 2] | 0x20) == 'u' && (buf[from + 3] | 0x20) == 'e';
+	}
+
+	// Non-negative decimal in the byte range; anything malformed reads as 0 (unknown).
+	private static long parseLong(byte[] buf, int from, int to) {
+		if (to <= from || to - from > 18) return 0;
+		long v = 0;
+		for (int i = from; i < to; i++) {
+			int d = buf[i] - '0';
+			if (d < 0 || d > 9) return 0;
+			v = v * 10 + d;
+		}
+		return v;
+	}
+
+	private static int indexOf(byte[] buf, byte b, int from, int to) {
+		for (int i = from; i < to; i++) {
+			if (buf[i] == b) return i;
+		}
+		return -1;
+	}
+
+	private static int indexOf(byte[] buf, byte[] pat, int from, int to) {
+		int last = to - pat.length;
+		outer:
+		for (int i = from; i <= last; i++) {
+			if (buf[i] != pat[0]) continue;
+			for (int j = 1; j < pat.length; j++) {
+				if (buf[i + j] != pat[j]) continue outer;
+			}
+			return i;
+		}
+		return -1;
+	}
+
+	// Synchronized so overlapping saves replace the file one at a time.
+	@Override
+	public synchronized void saveTasks(List<Task> tasks) throws IOException {
+		StoreIoEvent event = new StoreIoEvent();
+		event.begin();
+		AtomicFiles.write(file, durability, os -> {
+			Writer w = new OutputStreamWriter(os, StandardCharsets.UTF_8);
+			for (Task t : tasks) {
+				w.write(t.getId());
+				w.write("||SEP||");
+				w.write(t.getTitle());
+				w.write("||SEP||");
+				w.write(Boolean.toString(t.isDone()));
+				w.write(System.lineSeparator());
+				if (t.getCreatedAt() != 0 || t.getCompletedAt() != 0) {
+					w.write(TIMES);
+					w.write(Long.toString(t.getCreatedAt()));
+					w.write(',');
+					w.write(Long.toString(t.getCompletedAt()));
+					w.write(System.lineSeparator());
+				}
+			}
+			w.flush();
+		});
+		event.end();
+		if (event.shouldCommit()) commit(event, "save", Files.size(file), tasks.size());
+	}
+
+	private void commit(StoreIoEvent event, String operation, long bytes, int records) {
+		event.operation = operation;
+		event.store = "text";
+		event.path = file.toString();
+		event.bytes = bytes;
+		event.records = records;
+		event.commit();
 	}
 }
@@ -0,0 +1,396 @@
+package com.questify.store;
+
+import com.questify.diag.StoreIoEvent;
+import com.questify.util.AtomicFiles;
+import com.questify.util.AtomicFiles.Durability;
+import com.questify.util.TaskIds;
+import com.questify.util.WriteBehind;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+// Every XP change as an append-only log of fixed-size binary records, so the total is the sum of its
+// history rather than a number that is overwritten. The running total and a per-day rollup are kept in
+// memory; a checkpoint file saves both, with the log offset they cover, so loading reads the checkpoint
+// and replays only the records appended after it.
+//
+// Log: magic, version, then 32-byte records: long timestamp (ms), long idHi, long idLo, int delta,
+// int crc32 of the first 28 bytes. The id is the task or habit the XP came from, packed as in TaskIds;
+// 0/0 means none (e.g. XP migrated from config.properties) or an id that does not pack.
+// Appends are buffered here and written behind by a WriteBehind, which calls drain() on its thread.
+public class XpLedger {
+	private static final int MAGIC = 0x5158504C; // "QXPL"
+	private static final int CHECKPOINT_MAGIC = 0x51585043; // "QXPC"
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 8;
+	private static final int RECORD_BYTES = 32;
+	// A checkpoint is written once this many records were appended since the last one, which bounds replay.
+	private static final int CHECKPOINT_EVERY = 1024;
+
+	private final Path file;
+	private final Path checkpointFile;
+	private final Durability durability;
+	private final ZoneId zone = ZoneId.systemDefault();
+	private final WriteBehind<Void> writer = new WriteBehind<>("questify-xp-writer", WriteBehind.DEFAULT_DELAY_MS, v -> drain());
+
+	// In memory, guarded by this.
+	private boolean loaded = false;
+	private long total = 0;
+	private long entries = 0;
+	private final Rollup rollup = new Rollup();
+	private byte[] pending = new byte[RECORD_BYTES * 16];
+	private int pendingBytes = 0;
+
+	// On disk, guarded by writeLock.
+	private final Object writeLock = new Object();
+	private FileChannel out;
+	private long written;          // log length
+	private long checkpointOffset; // log length the checkpoint file covers
+	private int lastCrc;           // crc of the record ending at written
+
+	public XpLedger(Path file) {
+		this(file, Durability.FILE);
+	}
+
+	// With Durability.NONE appends are left to the OS; otherwise each batch of appends is fsynced.
+	public XpLedger(Path file, Durability durability) {
+		this.file = file;
+		this.checkpointFile = file.resolveSibling(file.getFileName() + ".checkpoint");
+		this.durability = durability;
+	}
+
+	// Read the checkpoint and replay the log after it; a torn or corrupt tail is truncated away.
+	// A checkpoint that does not match the log is ignored and the whole log replayed.
+	public void load() throws IOException {
+		synchronized (writeLock) {
+			synchronized (this) {
+				if (loaded) return;
+				StoreIoEvent event = new StoreIoEvent();
+				event.begin();
+				long from = HEADER_BYTES;
+				if (Files.exists(file)) {
+					long size = Files.size(file);
+					if (readCheckpoint(size)) from = checkpointOffset;
+					from = replay(from, size);
+				}
+				written = from;
+				loaded = true;
+				commit(event, "load", written, entries);
+			}
+		}
+	}
+
+	public synchronized long total() {
+		return total;
+	}
+
+	// Number of records, i.e. XP changes ever made.
+	public synchronized long entries() {
+		return entries;
+	}
+
+	public void record(String source, int delta) {
+		record(System.currentTimeMillis(), source, delta);
+	}
+
+	// Append one change; the total and rollup reflect it at once, the log a moment later.
+	public synchronized void record(long at, String source, int delta) {
+		if (!loaded) throw new IllegalStateException("XP ledger not loaded");
+		long hi = 0, lo = 0;
+		if (source != null && TaskIds.isPackable(source)) {
+			hi = TaskIds.hi(source);
+			lo = TaskIds.lo(source);
+		}
+		if (pendingBytes + RECORD_BYTES > pending.length) pending = Arrays.copyOf(pending, pending.length * 2);
+		ByteBuffer bb = ByteBuffer.wrap(pending, pendingBytes, RECORD_BYTES);
+		bb.putLong(at).putLong(hi).putLong(lo).putInt(delta);
+		bb.putInt(crc(pending, pendingBytes));
+		pendingBytes += RECORD_BYTES;
+		apply(at, delta);
+		writer.request();
+	}
+
+	// XP gained per day for epoch days [fromDay, toDay), by the local date each change was made.
+	public synchronized int[] perDay(long fromDay, long toDay) {
+		return rollup.range(fromDay, toDay);
+	}
+
+	// XP gained over epoch days [fromDay, toDay).
+	public synchronized long sum(long fromDay, long toDay) {
+		long n = 0;
+		for (int v : rollup.range(fromDay, toDay)) n += v;
+		return n;
+	}
+
+	// Write pending records now; false if some could not be written and are still pending.
+	public boolean flush() {
+		writer.flush();
+		synchronized (this) {
+			return pendingBytes == 0;
+		}
+	}
+
+	// Write pending records and a checkpoint, then stop the writer; call before the app exits.
+	public void close() {
+		writer.close();
+		synchronized (writeLock) {
+			Checkpoint c = null;
+			synchronized (this) {
+				if (loaded && written != checkpointOffset) c = new Checkpoint(total, entries, rollup.copy());
+			}
+			if (c != null) writeCheckpoint(c);
+			try {
+				if (out != null) out.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			out = null;
+		}
+	}
+
+	private void apply(long at, int delta) {
+		total += delta;
+		entries++;
+		rollup.add(Instant.ofEpochMilli(at).atZone(zone).toLocalDate().toEpochDay(), delta);
+	}
+
+	// Append what record() buffered, and checkpoint if enough has built up. The pending bytes and the
+	// state they lead to are taken together, so a checkpoint never covers records it does not include.
+	private void drain() {
+		synchronized (writeLock) {
+			byte[] bytes;
+			int n;
+			Checkpoint c = null;
+			synchronized (this) {
+				if (pendingBytes == 0) return;
+				bytes = pending;
+				n = pendingBytes;
+				pending = new byte[Math.max(RECORD_BYTES * 16, n)];
+				pendingBytes = 0;
+				if (written + n - checkpointOffset >= (long) CHECKPOINT_EVERY * RECORD_BYTES) {
+					c = new Checkpoint(total, entries, rollup.copy());
+				}
+			}
+			try {
+				FileChannel ch = channel();
+				ByteBuffer bb = ByteBuffer.wrap(bytes, 0, n);
+				while (bb.hasRemaining()) ch.write(bb);
+				if (durability != Durability.NONE) ch.force(false);
+				written += n;
+				lastCrc = ByteBuffer.wrap(bytes, n - 4, 4).getInt();
+			} catch (IOException e) {
+				e.printStackTrace();
+				// Put the records back for the next attempt, which reopens the log and overwrites any torn part.
+				try {
+					if (out != null) out.close();
+				} catch (IOException ignored) { }
+				out = null;
+				synchronized (this) {
+					byte[] merged = new byte[Math.max(pending.length, n + pendingBytes)];
+					System.arraycopy(bytes, 0, merged, 0, n);
+					System.arraycopy(pending, 0, merged, n, pendingBytes);
+					pending = merged;
+					pendingBytes += n;
+				}
+				return;
+			}
+			if (c != null) writeCheckpoint(c);
+		}
+	}
+
+	private FileChannel channel() throws IOException {
+		if (out == null) {
+			Files.createDirectories(file.toAbsolutePath().getParent());
+			out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+			if (out.size() < HEADER_BYTES) {
+				out.truncate(0);
+				ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).flip();
+				while (header.hasRemaining()) out.write(header, header.position());
+				written = HEADER_BYTES;
+			}
+			out.position(written);
+		}
+		return out;
+	}
+
+	// Replay records in [from, size) onto the loaded state and return where the good records end.
+	private long replay(long from, long size) throws IOException {
+		try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			if (size < HEADER_BYTES) {
+				ch.truncate(0);
+				return HEADER_BYTES;
+			}
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			while (header.hasRemaining() && ch.read(header, header.position()) >= 0) { }
+			header.flip();
+			if (header.getInt() != MAGIC) throw new IOException("Not an XP ledger: " + file);
+			int version = header.getInt();
+			if (version > VERSION) throw new IOException("Unsupported XP ledger version " + version + ": " + file);
+
+			ByteBuffer buf = ByteBuffer.allocate(RECORD_BYTES * 2048);
+			long at = from;
+			ch.position(from);
+			outer:
+			while (true) {
+				buf.clear();
+				while (buf.hasRemaining()) {
+					if (ch.read(buf) < 0) break;
+				}
+				buf.flip();
+				if (buf.remaining() < RECORD_BYTES) break;
+				byte[] a = buf.array();
+				for (int p = 0; p + RECORD_BYTES <= buf.limit(); p += RECORD_BYTES) {
+					int stored = buf.getInt(p + 28);
+					if (crc(a, p) != stored) break outer;
+					apply(buf.getLong(p), buf.getInt(p + 24));
+					lastCrc = stored;
+					at += RECORD_BYTES;
+				}
+				if (buf.limit() < buf.capacity()) break;
+			}
+			if (at < size) ch.truncate(at);
+			return at;
+		}
+	}
+
+	// Take the checkpoint's state if it covers a prefix of this log: its offset lies within the file and
+	// the record ending there has the crc it recorded.
+	private boolean readCheckpoint(long logSize) {
+		if (!Files.exists(checkpointFile)) return false;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpointFile)))) {
+			if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != VERSION) return false;
+			long offset = in.readLong();
+			int crc = in.readInt();
+			long t = in.readLong();
+			long e = in.readLong();
+			long firstDay = in.readLong();
+			int[] days = new int[in.readInt()];
+			for (int i = 0; i < days.length; i++) days[i] = in.readInt();
+			if (offset < HEADER_BYTES || offset > logSize || (offset - HEADER_BYTES) % RECORD_BYTES != 0) return false;
+			if (offset > HEADER_BYTES) {
+				try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+					ByteBuffer b = ByteBuffer.allocate(4);
+					while (b.hasRemaining() && ch.read(b, offset - 4 + b.position()) >= 0) { }
+					if (b.flip().remaining() < 4 || b.getInt() != crc) return false;
+				}
+			}
+			total = t;
+			entries = e;
+			rollup.set(firstDay, days);
+			checkpointOffset = offset;
+			lastCrc = crc;
+			return true;
+		} catch (IOException e) {
+			// Missing pieces or a damaged file: replay everything instead.
+			return false;
+		}
+	}
+
+	private void writeCheckpoint(Checkpoint c) {
+		StoreIoEvent event = new StoreIoEvent();
+		event.begin();
+		long offset = written;
+		int crc = lastCrc;
+		try {
+			AtomicFiles.write(checkpointFile, durability, os -> {
+				DataOutputStream d = new DataOutputStream(os);
+				d.writeInt(CHECKPOINT_MAGIC);
+				d.writeInt(VERSION);
+				d.writeLong(offset);
+				d.writeInt(crc);
+				d.writeLong(c.total);
+				d.writeLong(c.entries);
+				d.writeLong(c.rollup.firstDay);
+				d.writeInt(c.rollup.count);
+				for (int i = 0; i < c.rollup.count; i++) d.writeInt(c.rollup.days[i]);
+				d.flush();
+			});
+			checkpointOffset = offset;
+		} catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		commit(event, "checkpoint", 48 + 4L * c.rollup.count, c.entries);
+	}
+
+	private static int crc(byte[] b, int from) {
+		CRC32 crc = new CRC32();
+		crc.update(b, from, RECORD_BYTES - 4);
+		return (int) crc.getValue();
+	}
+
+	private void commit(StoreIoEvent event, String operation, long bytes, long records) {
+		event.end();
+		if (!event.shouldCommit()) return;
+		event.operation = operation;
+		event.store = "xp";
+		event.path = file.toString();
+		event.bytes = bytes;
+		event.records = (int) Math.min(records, Integer.MAX_VALUE);
+		event.commit();
+	}
+
+	// State as of a log offset, for writing as a checkpoint.
+	private static final class Checkpoint {
+		final long total;
+		final long entries;
+		final Rollup rollup;
+
+		Checkpoint(long total, long entries, Rollup rollup) {
+			this.total = total;
+			this.entries = entries;
+			this.rollup = rollup;
+		}
+	}
+
+	// XP per local day, as a dense array from the first day anything was recorded.
+	private static final class Rollup {
+		long firstDay;
+		int[] days = new int[0];
+		int count = 0;
+
+		void add(long day, int delta) {
+			if (count == 0) {
+				firstDay = day;
+			} else if (day < firstDay) {
+				// The clock went back past the first day; shift everything up.
+				int shift = (int) (firstDay - day);
+				int[] grown = new int[Math.max(days.length, count + shift)];
+				System.arraycopy(days, 0, grown, shift, count);
+				days = grown;
+				count += shift;
+				firstDay = day;
+			}
+			int i = (int) (day - firstDay);
+			if (i >= days.length) days = Arrays.copyOf(days, Math.max(i + 1, days.length * 2));
+			if (i >= count) count = i + 1;
+			days[i] += delta;
+		}
+
+		int[] range(long from, long to) {
+			int[] r = new int[(int) Math.max(0, to - from)];
+			if (count == 0) return r;
+			long lo = Math.max(from, firstDay), hi = Math.min(to, firstDay + count);
+			if (lo < hi) System.arraycopy(days, (int) (lo - firstDay), r, (int) (lo - from), (int) (hi - lo));
+			return r;
+		}
+
+		void set(long firstDay, int[] days) {
+			this.firstDay = firstDay;
+			this.days = days;
+			this.count = days.length;
+		}
+
+		Rollup copy() {
+			Rollup c = new Rollup();
+			c.set(firstDay, Arrays.copyOf(days, count));
+			return c;
+		}
+	}
+}
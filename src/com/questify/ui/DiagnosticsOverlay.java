@@ -0,0 +1,81 @@
+package com.questify.ui;
+
+import com.questify.diag.DiagnosticsEventQueue;
+import com.questify.diag.LatencyHistogram;
+import com.questify.store.SaveScheduler;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.util.Locale;
+
+// Performance overlay for diagnostics mode: EDT dispatch and input latency percentiles, the last
+// save's duration and heap use, refreshed twice a second while shown. F12 toggles it, and every
+// showing starts the histograms over so the numbers cover what was just done.
+class DiagnosticsOverlay extends JLabel {
+	private static final int REFRESH_MS = 500;
+
+	private final DiagnosticsEventQueue queue;
+	private final SaveScheduler saver;
+	private final Timer refresh;
+
+	DiagnosticsOverlay(DiagnosticsEventQueue queue, SaveScheduler saver) {
+		this.queue = queue;
+		this.saver = saver;
+		setOpaque(true);
+		setBackground(new Color(30, 30, 30));
+		setForeground(Color.WHITE);
+		setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+		setBorder(BorderFactory.createEmptyBorder(4, 6, 4, 6));
+		setFocusable(false);
+		setVisible(false);
+		getAccessibleContext().setAccessibleName("Performance overlay");
+		refresh = new Timer(REFRESH_MS, e -> update());
+	}
+
+	// Float over the frame's top-left corner and bind F12 anywhere in the window.
+	void install(JFrame frame) {
+		frame.getLayeredPane().add(this, JLayeredPane.PALETTE_LAYER);
+		JRootPane root = frame.getRootPane();
+		root.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F12, 0), "toggleDiagnostics");
+		root.getActionMap().put("toggleDiagnostics", new AbstractAction() {
+			public void actionPerformed(ActionEvent e) { toggle(); }
+		});
+	}
+
+	private void toggle() {
+		if (isVisible()) {
+			refresh.stop();
+			setVisible(false);
+			return;
+		}
+		queue.dispatchTimes().reset();
+		queue.inputLag().reset();
+		update();
+		setVisible(true);
+		refresh.start();
+	}
+
+	private void update() {
+		LatencyHistogram d = queue.dispatchTimes();
+		LatencyHistogram in = queue.inputLag();
+		Runtime rt = Runtime.getRuntime();
+		long usedMb = (rt.totalMemory() - rt.freeMemory()) >> 20;
+		long save = saver.getLastWriteNanos();
+		setText(String.format(Locale.ROOT,
+				"<html>EDT %d events: p50 %s  p99 %s  max %s<br>"
+				+ "input lag: p50 %s  p99 %s<br>"
+				+ "last save: %s<br>"
+				+ "heap: %d / %d MB</html>",
+				d.count(), ms(d.percentile(50)), ms(d.percentile(99)), ms(d.max()),
+				ms(in.percentile(50)), ms(in.percentile(99)),
+				save < 0 ? "none yet" : ms(save),
+				usedMb, rt.maxMemory() >> 20));
+		setBounds(8, 8, getPreferredSize().width, getPreferredSize().height);
+	}
+
+	private static String ms(long ns) {
+		return String.format(Locale.ROOT, "%.2f ms", ns / 1e6);
+	}
+}
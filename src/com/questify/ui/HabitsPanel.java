@@ -0,0 +1,227 @@
+package com.questify.ui;
+
+import com.questify.diag.UserActionEvent;
+import com.questify.model.Habit;
+import com.questify.model.Recurrence;
+import com.questify.store.HabitStore;
+import com.questify.util.Titles;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.function.ObjIntConsumer;
+
+// "Today's Habits": the habits due today, each marked done for the day with Space or a double click.
+// Nothing is stored per occurrence; today's list is worked out from each habit's rule when the day
+// starts, and a mark sets one bit in the habit's completion bitmap.
+class HabitsPanel extends JPanel {
+	private static final int XP_PER_HABIT = 10;
+	private static final int VISIBLE_ROWS = 3;
+	// How often to check whether the date changed, so the list turns over at midnight.
+	private static final int DAY_CHECK_MS = 60_000;
+
+	private final HabitStore store;
+	private final ObjIntConsumer<String> xp; // habit id and the XP gained (or lost, if negative) by marking it
+	private final List<Habit> habits = new ArrayList<>();
+	private final DefaultListModel<Habit> due = new DefaultListModel<>();
+	private final JList<Habit> list = new JList<>(due);
+	private final JButton addBtn = new JButton("New Habit");
+	private long day = LocalDate.now().toEpochDay();
+
+	HabitsPanel(HabitStore store, ObjIntConsumer<String> xp) {
+		super(new BorderLayout());
+		this.store = store;
+		this.xp = xp;
+		setBorder(BorderFactory.createTitledBorder("Today's Habits"));
+
+		list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		list.setVisibleRowCount(VISIBLE_ROWS);
+		list.setFont(list.getFont().deriveFont(16f));
+		list.setCellRenderer(new DefaultListCellRenderer() {
+			@Override
+			public Component getListCellRendererComponent(JList<?> l, Object value, int index, boolean selected, boolean focused) {
+				super.getListCellRendererComponent(l, value, index, selected, focused);
+				Habit h = (Habit) value;
+				boolean done = h.isDoneOn(day);
+				setText((done ? "[x] " : "[ ] ") + h.getTitle() + "  ·  " + h.getRule());
+				if (done && !selected) setForeground(Color.GRAY);
+				return this;
+			}
+		});
+		add(new JScrollPane(list), BorderLayout.CENTER);
+
+		addBtn.setMnemonic(KeyEvent.VK_H);
+		addBtn.setEnabled(false); // until the saved habits are loaded, so a save cannot drop them
+		JPanel buttons = new JPanel(new FlowLayout(FlowLayout.RIGHT, 0, 4));
+		buttons.add(addBtn);
+		add(buttons, BorderLayout.SOUTH);
+
+		addBtn.addActionListener(e -> onAdd());
+		list.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_SPACE, 0), "toggleHabit");
+		list.getActionMap().put("toggleHabit", new AbstractAction() {
+			public void actionPerformed(ActionEvent e) { onToggle(); }
+		});
+		list.getInputMap(JComponent.WHEN_FOCUSED).put(KeyStroke.getKeyStroke(KeyEvent.VK_DELETE, 0), "deleteHabit");
+		list.getActionMap().put("deleteHabit", new AbstractAction() {
+			public void actionPerformed(ActionEvent e) { onDelete(); }
+		});
+		list.addMouseListener(new MouseAdapter() {
+			public void mouseClicked(MouseEvent e) {
+				if (e.getClickCount() == 2) onToggle();
+			}
+		});
+
+		new Timer(DAY_CHECK_MS, e -> {
+			long now = LocalDate.now().toEpochDay();
+			if (now != day) {
+				day = now;
+				showDue();
+			}
+		}).start();
+
+		list.getAccessibleContext().setAccessibleName("Today's habits list");
+		list.getAccessibleContext().setAccessibleDescription("Habits due today. Space marks the selected habit done or not done for today, Delete removes it.");
+		addBtn.setToolTipText("Add a recurring habit (Alt+H)");
+		addBtn.getAccessibleContext().setAccessibleName("New habit");
+		addBtn.getAccessibleContext().setAccessibleDescription("Create a habit that repeats daily, on chosen weekdays or every few days. Shortcut: Alt+H");
+
+		load();
+	}
+
+	// Every habit, due today or not; EDT only.
+	List<Habit> getHabits() {
+		return habits;
+	}
+
+	private void load() {
+		new SwingWorker<List<Habit>, Void>() {
+			@Override
+			protected List<Habit> doInBackground() throws Exception {
+				return store.load();
+			}
+			@Override
+			protected void done() {
+				try {
+					habits.addAll(get());
+				} catch (Exception e) {
+					// Adding now would save a list without the habits that did not load, replacing them.
+					e.printStackTrace();
+					addBtn.setToolTipText("Habits could not be loaded, so new ones cannot be saved");
+					return;
+				}
+				showDue();
+				addBtn.setEnabled(true);
+			}
+		}.execute();
+	}
+
+	// List the habits due today, keeping the selection.
+	private void showDue() {
+		Habit selected = list.getSelectedValue();
+		due.clear();
+		for (Habit h : habits) {
+			if (h.isDueOn(day)) due.addElement(h);
+		}
+		if (selected != null) list.setSelectedValue(selected, true);
+	}
+
+	private void onAdd() {
+		JTextField title = new JTextField(20);
+		DayOfWeek weekday = LocalDate.ofEpochDay(day).getDayOfWeek();
+		String[] choices = {"Every day", "Weekdays", "Every " + weekday.getDisplayName(TextStyle.FULL, Locale.getDefault()), "Every few days"};
+		JComboBox<String> repeat = new JComboBox<>(choices);
+		JSpinner interval = new JSpinner(new SpinnerNumberModel(2, 2, 365, 1));
+		interval.setEnabled(false);
+		repeat.addActionListener(e -> interval.setEnabled(repeat.getSelectedIndex() == 3));
+
+		JPanel form = new JPanel(new GridLayout(0, 1, 0, 4));
+		form.add(new JLabel("Habit title:"));
+		form.add(title);
+		form.add(new JLabel("Repeats:"));
+		form.add(repeat);
+		JPanel every = new JPanel(new BorderLayout(6, 0));
+		every.add(new JLabel("Days between:"), BorderLayout.WEST);
+		every.add(interval, BorderLayout.CENTER);
+		form.add(every);
+		title.getAccessibleContext().setAccessibleName("Habit title");
+		repeat.getAccessibleContext().setAccessibleName("How often the habit repeats");
+		interval.getAccessibleContext().setAccessibleName("Days between occurrences");
+
+		int r = JOptionPane.showConfirmDialog(this, form, "New Habit", JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+		if (r != JOptionPane.OK_OPTION || title.getText().trim().isEmpty()) return;
+		UserActionEvent event = beginAction("habit.add");
+		Recurrence rule;
+		switch (repeat.getSelectedIndex()) {
+			case 1:
+				rule = Recurrence.weekly(Recurrence.bit(DayOfWeek.MONDAY) | Recurrence.bit(DayOfWeek.TUESDAY)
+						| Recurrence.bit(DayOfWeek.WEDNESDAY) | Recurrence.bit(DayOfWeek.THURSDAY) | Recurrence.bit(DayOfWeek.FRIDAY));
+				break;
+			case 2:
+				rule = Recurrence.weekly(Recurrence.bit(weekday));
+				break;
+			case 3:
+				rule = Recurrence.everyNDays((Integer) interval.getValue());
+				break;
+			default:
+				rule = Recurrence.daily();
+		}
+		Habit h = new Habit(UUID.randomUUID().toString(), Titles.format(title.getText()), rule, day, System.currentTimeMillis());
+		habits.add(h);
+		showDue();
+		if (h.isDueOn(day)) {
+			list.setSelectedValue(h, true);
+			list.requestFocusInWindow();
+		}
+		save();
+		event.commit();
+	}
+
+	// Mark the selected habit done for today, or undo that.
+	private void onToggle() {
+		Habit h = list.getSelectedValue();
+		if (h == null) return;
+		UserActionEvent event = beginAction("habit.toggle");
+		boolean done = !h.isDoneOn(day);
+		h.setDoneOn(day, done);
+		xp.accept(h.getId(), done ? XP_PER_HABIT : -XP_PER_HABIT);
+		list.repaint(list.getCellBounds(list.getSelectedIndex(), list.getSelectedIndex()));
+		save();
+		event.commit();
+	}
+
+	private void onDelete() {
+		Habit h = list.getSelectedValue();
+		if (h == null) return;
+		int r = JOptionPane.showConfirmDialog(this, "Delete \"" + h.getTitle() + "\" and its history?", "Delete Habit",
+				JOptionPane.OK_CANCEL_OPTION);
+		if (r != JOptionPane.OK_OPTION) return;
+		UserActionEvent event = beginAction("habit.delete");
+		int row = list.getSelectedIndex();
+		habits.remove(h);
+		due.removeElement(h);
+		if (!due.isEmpty()) list.setSelectedIndex(Math.min(row, due.size() - 1));
+		save();
+		event.commit();
+	}
+
+	// Hand the writer copies, so marks made meanwhile cannot change what it is writing.
+	private void save() {
+		List<Habit> snapshot = new ArrayList<>(habits.size());
+		for (Habit h : habits) snapshot.add(h.copy());
+		store.submit(snapshot);
+	}
+
+	private static UserActionEvent beginAction(String action) {
+		UserActionEvent event = new UserActionEvent();
+		event.action = action;
+		event.begin();
+		return event;
+	}
+}
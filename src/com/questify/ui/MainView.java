@@ -1,40 +1,134 @@
 package com.questify.ui;
 
+import com.questify.diag.DiagnosticsEventQueue;
+import com.questify.diag.UserActionEvent;
 import com.questify.model.Task;
+import com.questify.model.TaskStats;
+import com.questify.store.HabitStore;
+import com.questify.store.SaveScheduler;
+import com.questify.store.StatsStore;
 import com.questify.store.TaskStore;
+import com.questify.store.XpLedger;
 import com.questify.util.ConfigStore;
+import com.questify.util.StartupTrace;
+import com.questify.util.Titles;
+import com.questify.util.TrigramIndex;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.BufferedImage;
 import java.util.*;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 // Main application window with two lists and a simple button bar.
 public class MainView extends JFrame {
-	private DefaultListModel<Task> activeModel;
-	private DefaultListModel<Task> completedModel;
+	private TaskListModel activeModel;
+	private TaskRowModel completedModel;
+	// completedModel when it holds every completed task; null when they are paged in from the store.
+	private TaskTableModel completedTable;
     private JList<Task> activeList;
     private JList<Task> completedList;
 	private final TaskStore store;
+	private final SaveScheduler saver;
 	private final ConfigStore cfg;
+	// Recurring habits shown above the task lists, or null to leave them out.
+	private final HabitStore habits;
+	// Where XP changes are recorded, or null to keep the total in config.properties as before.
+	private final XpLedger ledger;
+	// Where task stats are saved between runs, or null to count them on every load.
+	private final StatsStore statsStore;
+	// Set when loading finishes; until then edits are counted in statsDuringLoad and added to it then.
+	private TaskStats stats;
+	private TaskStats statsDuringLoad = new TaskStats();
+	// An edit before loading finished asked for the stats to be saved once it does. EDT-only; the load
+	// worker reports a rebuild through its result instead.
+	private boolean saveStatsAfterLoad = false;
+	private HabitsPanel habitsPanel;
+	// Completed tasks are paged in from the store instead of loaded up front.
+	private final boolean pagedCompleted;
 	private JLabel xpLabel;
+	private JTextField searchField;
 	private int xp = 0;
 	private final Dimension phoneSize;
 	
 	private JList<? extends Task> lastListFocused;
 	
+	// Tasks are published to the lists in chunks while loading.
+	private static final int FIRST_LOAD_CHUNK = 64;
+	private static final int LOAD_CHUNK = 2048;
+	private boolean loaded = false;
+	private boolean saveAfterLoad = false;
+	
+	// Search: titles of every task held in memory, kept current by the handlers below. A paged completed
+	// history is not indexed here; the store finds those tasks by title prefix instead (see readTasks).
+	private final TrigramIndex searchIndex = new TrigramIndex();
+	// What the lists show when filtered or sorted; built off the EDT, and only the newest build is shown.
+	private final TaskListModel activeView = new TaskListModel();
+	private final TaskListModel completedView = new TaskListModel();
+	private JComboBox<TaskOrder> orderBox;
+	private TaskOrder order = TaskOrder.LIST;
+	private long viewSeq = 0;
+	// A build is in flight, so the views shown are stale and edits rebuild them instead of patching them.
+	private boolean viewPending = false;
+	// Id of a task to select in the active list once the pending build is shown.
+	private String selectAfterView;
+	// At most this many matches are listed per query.
+	private static final int SEARCH_LIMIT = 1000;
+	// Queries too short for a trigram scan every title, so they wait for a pause in typing.
+	private static final int SHORT_QUERY_DELAY_MS = 300;
+	private final javax.swing.Timer shortQueryTimer = new javax.swing.Timer(SHORT_QUERY_DELAY_MS, e -> refreshViews());
+	
+	// Mutations are saved at most once per this many milliseconds.
+	public static final long DEFAULT_SAVE_DELAY_MS = 250;
+	
+	// Tasks read before the window was built (see preloadTasks), or null to read them in loadTasks.
+	private final CompletableFuture<List<Task>> preloaded;
+	
 	public MainView(TaskStore store, Dimension phoneSize, ConfigStore cfg) {
+		this(store, phoneSize, cfg, DEFAULT_SAVE_DELAY_MS);
+	}
+	
+	public MainView(TaskStore store, Dimension phoneSize, ConfigStore cfg, long saveDelayMs) {
+		this(store, phoneSize, cfg, saveDelayMs, null);
+	}
+	
+	public MainView(TaskStore store, Dimension phoneSize, ConfigStore cfg, long saveDelayMs, CompletableFuture<List<Task>> preloaded) {
+		this(store, phoneSize, cfg, saveDelayMs, preloaded, null, null, null);
+	}
+	
+	public MainView(TaskStore store, Dimension phoneSize, ConfigStore cfg, long saveDelayMs, CompletableFuture<List<Task>> preloaded,
+			HabitStore habits, XpLedger ledger, StatsStore statsStore) {
         super("Questify");
         this.store = store;
+        this.habits = habits;
+        this.ledger = ledger;
+        this.statsStore = statsStore;
+        this.preloaded = preloaded;
+        this.saver = new SaveScheduler(store, saveDelayMs);
         this.phoneSize = phoneSize;
         this.cfg = cfg;
+        this.pagedCompleted = store.supportsPaging() && store.supportsRecordUpdates();
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         
+        // Write out any debounced task, habit, XP, stats and config saves before the JVM exits.
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                saver.close();
+                if (habits != null) habits.close();
+                if (ledger != null) ledger.close();
+                if (statsStore != null) statsStore.close();
+                cfg.flush();
+            }
+        });
+        
         initUI();
         
-        xp = cfg.getXp();
+        xp = ledger != null ? (int) ledger.total() : cfg.getXp();
         if (xpLabel != null) xpLabel.setText("XP: " + xp);
         
         getContentPane().setPreferredSize(phoneSize);
@@ -45,11 +139,24 @@ public class MainView extends JFrame {
 	
 	// Build UI components and wire interactions.
 	private void initUI() {
-		activeModel = new DefaultListModel<>();
-		completedModel = new DefaultListModel<>();
+		activeModel = new TaskListModel();
+		if (pagedCompleted) {
+			completedModel = new PagedTaskListModel((from, max) -> saver.read(s -> s.loadTasks(true, from, max)));
+			// Type-ahead would read every row, paging in the whole history.
+			completedList = new JList<>(completedModel) {
+				@Override
+				public int getNextMatch(String prefix, int startIndex, javax.swing.text.Position.Bias bias) {
+					return -1;
+				}
+			};
+		} else {
+			// The completed list only grows, so its rows live in columns rather than as Task objects.
+			completedTable = new TaskTableModel();
+			completedModel = completedTable;
+			completedList = new JList<>(completedModel);
+		}
 		
 		activeList = new JList<>(activeModel);
-        completedList = new JList<>(completedModel);
         
         activeList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         completedList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -58,8 +165,8 @@ public class MainView extends JFrame {
         completedList.setFont(completedList.getFont().deriveFont(16f));
         
         TaskCellRenderer renderer = new TaskCellRenderer();
-        activeList.setCellRenderer(renderer);
-        completedList.setCellRenderer(renderer);
+        renderer.install(activeList);
+        renderer.install(completedList);
         
         JScrollPane activeScroll = new JScrollPane(activeList);
         JScrollPane completedScroll = new JScrollPane(completedList);
@@ -99,14 +206,65 @@ public class MainView extends JFrame {
         buttonBar.add(delBtn);
         buttonBar.add(xpLabel);
 		
+        searchField = new JTextField();
+        searchField.setEnabled(false); // until every title is indexed
+        JLabel searchLabel = new JLabel("Search: ");
+        searchLabel.setDisplayedMnemonic(KeyEvent.VK_F);
+        searchLabel.setLabelFor(searchField);
+        JPanel searchBar = new JPanel(new BorderLayout());
+        searchBar.setBorder(BorderFactory.createEmptyBorder(8, 8, 0, 8));
+        searchBar.add(searchLabel, BorderLayout.WEST);
+        searchBar.add(searchField, BorderLayout.CENTER);
+        
+        orderBox = new JComboBox<>(TaskOrder.values());
+        orderBox.setEnabled(false); // until every task is loaded
+        JLabel orderLabel = new JLabel(" Sort: ");
+        orderLabel.setDisplayedMnemonic(KeyEvent.VK_S);
+        orderLabel.setLabelFor(orderBox);
+        JPanel orderPanel = new JPanel(new BorderLayout());
+        orderPanel.add(orderLabel, BorderLayout.WEST);
+        orderPanel.add(orderBox, BorderLayout.CENTER);
+        searchBar.add(orderPanel, BorderLayout.EAST);
+        
         getContentPane().setLayout(new BorderLayout());
-        getContentPane().add(split, BorderLayout.CENTER);
+        getContentPane().add(searchBar, BorderLayout.NORTH);
+        if (habits != null) {
+            // Marking a habit done is worth XP like completing a task.
+            JPanel center = new JPanel(new BorderLayout());
+            habitsPanel = new HabitsPanel(habits, (id, amount) -> {
+                if (amount >= 0) addXp(amount, id);
+                else removeXp(-amount, id);
+            });
+            center.add(habitsPanel, BorderLayout.NORTH);
+            center.add(split, BorderLayout.CENTER);
+            getContentPane().add(center, BorderLayout.CENTER);
+        } else {
+            getContentPane().add(split, BorderLayout.CENTER);
+        }
         getContentPane().add(buttonBar, BorderLayout.SOUTH);
         
         addBtn.addActionListener(e -> onAdd());
         delBtn.addActionListener(e -> onDelete());
         toggleBtn.addActionListener(e -> onToggle());
         
+        // Filter as the user types; Escape clears the filter.
+        shortQueryTimer.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            public void insertUpdate(javax.swing.event.DocumentEvent e) { onSearchEdited(); }
+            public void removeUpdate(javax.swing.event.DocumentEvent e) { onSearchEdited(); }
+            public void changedUpdate(javax.swing.event.DocumentEvent e) { onSearchEdited(); }
+        });
+        searchField.getInputMap(JComponent.WHEN_FOCUSED)
+        .put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "clearSearch");
+        searchField.getActionMap().put("clearSearch", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) { clearSearch(); }
+        });
+        
+        orderBox.addActionListener(e -> {
+            order = (TaskOrder) orderBox.getSelectedItem();
+            refreshViews();
+        });
+        
         // Delete key binding for lists.
         activeList.getInputMap(JComponent.WHEN_FOCUSED)
         .put(KeyStroke.getKeyStroke(KeyEvent.VK_DELETE, 0), "deleteActive");
@@ -152,8 +310,16 @@ public class MainView extends JFrame {
         toggleBtn.getAccessibleContext().setAccessibleName("Toggle task");
         toggleBtn.getAccessibleContext().setAccessibleDescription("Mark selected task complete or incomplete");
         
+        searchField.setToolTipText("Filter tasks by title (Alt+F, Escape to clear)");
+        searchField.getAccessibleContext().setAccessibleName("Search tasks");
+        searchField.getAccessibleContext().setAccessibleDescription("Type to show only tasks whose title contains the text. Escape clears the filter.");
+        
+        orderBox.setToolTipText("Order the task lists (Alt+S)");
+        orderBox.getAccessibleContext().setAccessibleName("Sort tasks");
+        orderBox.getAccessibleContext().setAccessibleDescription("Choose the order tasks are listed in. List order shows them as added.");
+        
         xpLabel.getAccessibleContext().setAccessibleName("Experience points");
-        xpLabel.getAccessibleContext().setAccessibleDescription("Your earned experience points");
+        xpLabel.getAccessibleContext().setAccessibleDescription("Your earned experience points. Alt+T shows your stats");
         xpLabel.setFocusable(false);
         
         // Track last-focused list for navigation.
@@ -182,6 +348,21 @@ public class MainView extends JFrame {
             }
         });
         
+        // Alt+T anywhere, or a click on the XP count, opens the stats.
+        getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW)
+        .put(KeyStroke.getKeyStroke(KeyEvent.VK_T, InputEvent.ALT_DOWN_MASK), "showStats");
+        getRootPane().getActionMap().put("showStats", new AbstractAction() {
+            public void actionPerformed(ActionEvent e) { showStats(); }
+        });
+        xpLabel.setToolTipText("Stats (Alt+T)");
+        xpLabel.addMouseListener(new MouseAdapter() {
+            public void mouseClicked(MouseEvent e) { showStats(); }
+        });
+        
+        // -Dquestify.diagnostics: performance overlay, toggled with F12.
+        DiagnosticsEventQueue diagnostics = DiagnosticsEventQueue.installed();
+        if (diagnostics != null) new DiagnosticsOverlay(diagnostics, saver).install(this);
+        
         loadTasks();
 	}
 	
@@ -339,19 +520,21 @@ public class MainView extends JFrame {
     private void onAdd() {
 		String title = JOptionPane.showInputDialog(this, "Task title:");
         if (title != null && !title.trim().isEmpty()) {
+            UserActionEvent event = beginAction("add");
             String formatted = formatTitle(title);
-            Task t = new Task(UUID.randomUUID().toString(), formatted, false);
+            Task t = new Task(UUID.randomUUID().toString(), formatted, false, System.currentTimeMillis(), 0);
+            // Leave search results so the new task is visible and selectable.
+            clearSearch();
             activeModel.addElement(t);
-            saveTasksAsync();
+            searchIndex.put(t.getId(), t.getTitle());
+            placeInView(activeList, activeModel, t);
+            persistUpsert(t);
+            countStats().added(t);
+            saveStats();
 
             // Select the newly added task and return focus to the active list.
-            int newIndex = activeModel.getSize() - 1;
-            if (newIndex >= 0) {
-                activeList.setSelectedIndex(newIndex);
-                activeList.ensureIndexIsVisible(newIndex);
-                activeList.requestFocusInWindow();
-                lastListFocused = activeList;
-            }
+            selectActive(t.getId());
+            event.commit();
         } else {
             // If the user cancelled the Add dialog, restore focus to the last-focused list.
             if (lastListFocused != null) transferFocusToList(lastListFocused);
@@ -360,71 +543,339 @@ public class MainView extends JFrame {
     
     // Delete selected task.
 	private void onDelete() {
-        if (activeList.getSelectedIndex() >= 0) {
-            activeModel.remove(activeList.getSelectedIndex());
-            saveTasksAsync();
+        UserActionEvent event = beginAction("delete");
+        int aidx = activeList.getSelectedIndex();
+        if (aidx >= 0) {
+            Task t = taskAt(activeList, aidx);
+            removeRow(activeList, activeModel, aidx, t);
+            unindex(t.getId());
+            persistDelete(t);
+            countStats().deleted(t);
+            saveStats();
+            event.commit();
             return;
         }
-        if (completedList.getSelectedIndex() >= 0) {
-            completedModel.remove(completedList.getSelectedIndex());
-            saveTasksAsync();
+        int cidx = completedList.getSelectedIndex();
+        // A row whose page is still loading cannot be acted on yet.
+        Task t = cidx >= 0 ? taskAt(completedList, cidx) : null;
+        if (t != null) {
+            removeRow(completedList, completedModel, cidx, t);
+            unindex(t.getId());
+            persistDelete(t);
+            countStats().deleted(t);
+            saveStats();
         }
+        event.commit();
     }
 	
 	// Toggle task completion and adjust XP.
 	private void onToggle() {
+        UserActionEvent event = beginAction("toggle");
         int aidx = activeList.getSelectedIndex();
         if (aidx >= 0) {
-            Task t = activeModel.get(aidx);
+            Task t = taskAt(activeList, aidx);
             t.setDone(true);
-            activeModel.remove(aidx);
+            removeRow(activeList, activeModel, aidx, t);
             completedModel.addElement(t);
-            addXp(10);
-            saveTasksAsync();
+            placeInView(completedList, completedModel, t);
+            addXp(10, t.getId());
+            persistUpdate(t);
+            countStats().completed(t.getCompletedAt());
+            saveStats();
+            event.commit();
             return;
         }
         int cidx = completedList.getSelectedIndex();
-        if (cidx >= 0) {
-            Task t = completedModel.get(cidx);
+        Task t = cidx >= 0 ? taskAt(completedList, cidx) : null;
+        if (t != null) {
+            long completedAt = t.getCompletedAt();
             t.setDone(false);
-            completedModel.remove(cidx);
+            removeRow(completedList, completedModel, cidx, t);
             activeModel.addElement(t);
-            removeXp(10);
-            saveTasksAsync();
+            placeInView(activeList, activeModel, t);
+            removeXp(10, t.getId());
+            persistUpdate(t);
+            countStats().reopened(completedAt);
+            saveStats();
         }
+        event.commit();
     }
 	
 	// Edit selected task title.
 	private void onEdit() {
-        if (activeList.getSelectedIndex() >= 0) {
-            int idx = activeList.getSelectedIndex();
-            Task t = activeModel.get(idx);
-            String s = JOptionPane.showInputDialog(this, "Edit task title:", t.getTitle());
-            if (s != null && !s.trim().isEmpty()) {
-                String formatted = formatTitle(s);
-                t.setTitle(formatted);
-                activeModel.set(idx, t);
-                saveTasksAsync();
+        JList<Task> list = activeList.getSelectedIndex() >= 0 ? activeList : completedList;
+        TaskRowModel base = list == activeList ? activeModel : completedModel;
+        int idx = list.getSelectedIndex();
+        Task t = idx >= 0 ? taskAt(list, idx) : null;
+        if (t == null) return;
+        String s = JOptionPane.showInputDialog(this, "Edit task title:", t.getTitle());
+        if (s != null && !s.trim().isEmpty()) {
+            UserActionEvent event = beginAction("edit");
+            String formatted = formatTitle(s);
+            t.setTitle(formatted);
+            setRow(list, base, idx, t);
+            searchIndex.put(t.getId(), formatted);
+            persistUpdate(t);
+            if (viewPending || !searchField.getText().trim().isEmpty()) {
+                // The new title may not match the query any more.
+                refreshViews();
+            } else if (order == TaskOrder.TITLE && list.getModel() != base) {
+                // Move the row to where its new title sorts and keep it selected.
+                TaskListModel view = (TaskListModel) list.getModel();
+                int r = view.indexOfId(t.getId());
+                if (r >= 0) view.remove(r);
+                r = order.insertionPoint(view, t);
+                view.insert(r, t);
+                list.setSelectedIndex(r);
+                list.ensureIndexIsVisible(r);
+            }
+            event.commit();
+        }
+    }
+	
+	// JFR timing of a handler's EDT work; started after any dialog so user think time is left out.
+	private static UserActionEvent beginAction(String action) {
+        UserActionEvent event = new UserActionEvent();
+        event.action = action;
+        event.begin();
+        return event;
+    }
+	
+	// The task shown at row of list, or null for a paged row that is not loaded.
+	private static Task taskAt(JList<Task> list, int row) {
+        Task t = list.getModel().getElementAt(row);
+        return PagedTaskListModel.isPlaceholder(t) ? null : t;
+    }
+	
+	// Remove a row from the list and from its base model, which differ while a filtered or sorted view is shown.
+	private void removeRow(JList<Task> list, TaskRowModel base, int row, Task t) {
+        if (list.getModel() == base) {
+            base.remove(row);
+        } else {
+            ((TaskListModel) list.getModel()).remove(row);
+            int b = base.indexOfId(t.getId());
+            if (b >= 0) {
+                base.remove(b);
+            } else if (base instanceof PagedTaskListModel) {
+                // The row is not paged in, so its position is unknown; re-read the count instead,
+                // after the caller has queued its write.
+                SwingUtilities.invokeLater(this::reloadCompleted);
+            }
+        }
+        // A build in flight was started from lists that still held the row.
+        if (viewPending) refreshViews();
+    }
+	
+	// Replace a row in the list and in its base model; rows not paged in are re-read from the store.
+	private void setRow(JList<Task> list, TaskRowModel base, int row, Task t) {
+        if (list.getModel() != base) {
+            // The view may have been rebuilt while the edit dialog was open, so look the row up again.
+            TaskListModel shown = (TaskListModel) list.getModel();
+            int r = shown.indexOfId(t.getId());
+            if (r >= 0) shown.set(r, t);
+            row = base.indexOfId(t.getId());
+            if (row < 0) return;
+        }
+        base.set(row, t);
+    }
+	
+	// Show a task just appended to base in the list's view as well: a binary insert into a sorted view,
+	// or a rebuild when the view is filtered or already being rebuilt.
+	private void placeInView(JList<Task> list, TaskRowModel base, Task t) {
+        if (viewPending || !searchField.getText().trim().isEmpty()) {
+            refreshViews();
+        } else if (list.getModel() != base) {
+            TaskListModel view = (TaskListModel) list.getModel();
+            view.insert(order.insertionPoint(view, t), t);
+        }
+    }
+	
+	// Select a task in the active list, or remember it until the pending build is shown.
+	private void selectActive(String id) {
+        if (viewPending) {
+            selectAfterView = id;
+            return;
+        }
+        int row = ((TaskListModel) activeList.getModel()).indexOfId(id);
+        if (row < 0) return;
+        activeList.setSelectedIndex(row);
+        activeList.ensureIndexIsVisible(row);
+        activeList.requestFocusInWindow();
+        lastListFocused = activeList;
+    }
+	
+	// Reset the paged completed list to the store's count once the writes queued so far have landed.
+	private void reloadCompleted() {
+        PagedTaskListModel paged = (PagedTaskListModel) completedModel;
+        int gen = paged.generation();
+        saver.read(s -> s.count(true)).whenComplete((n, err) -> SwingUtilities.invokeLater(() -> {
+            if (err != null) {
+                err.printStackTrace();
+            } else if (paged.generation() != gen) {
+                reloadCompleted(); // edited meanwhile; the count may not include those edits
+            } else {
+                paged.reset(n);
             }
+        }));
+    }
+	
+	// Drop a deleted task from the search index.
+	private void unindex(String id) {
+        searchIndex.remove(id);
+    }
+	
+	// Rebuild what both lists show from the search text and the chosen order. With neither, the lists
+	// show their models directly. Otherwise the query or sort runs on a worker and only the newest
+	// build is shown; sorting works on snapshots taken here, and any edit meanwhile starts a new build.
+	// The paged completed list is never sorted, as that would mean reading the whole history.
+	private void refreshViews() {
+        String q = searchField.getText().trim();
+        Comparator<Task> cmp = order.comparator();
+        long seq = ++viewSeq;
+        if (q.isEmpty() && cmp == null) {
+            viewPending = false;
+            showLists(activeModel, completedModel);
+            selectPendingTask();
             return;
         }
-        if (completedList.getSelectedIndex() >= 0) {
-            int idx = completedList.getSelectedIndex();
-            Task t = completedModel.get(idx);
-            String s = JOptionPane.showInputDialog(this, "Edit task title:", t.getTitle());
-            if (s != null && !s.trim().isEmpty()) {
-                String formatted = formatTitle(s);
-                t.setTitle(formatted);
-                completedModel.set(idx, t);
-                saveTasksAsync();
+        viewPending = true;
+        List<Task> active = q.isEmpty() ? activeModel.toList() : null;
+        List<Task> completed = q.isEmpty() && completedTable != null ? completedTable.toList() : null;
+        new SwingWorker<Runnable, Void>() {
+            @Override
+            protected Runnable doInBackground() throws Exception {
+                if (!q.isEmpty()) {
+                    List<TrigramIndex.Hit> hits = searchIndex.search(q, SEARCH_LIMIT);
+                    List<Task> stored = pagedCompleted ? readTasks(hits, q) : null;
+                    return () -> showMatches(hits, stored, cmp);
+                }
+                Task[] a = sorted(active, cmp);
+                Task[] c = completed != null ? sorted(completed, cmp) : null;
+                return () -> showSorted(a, c);
             }
+            @Override
+            protected void done() {
+                if (seq != viewSeq) return;
+                viewPending = false;
+                try {
+                    get().run();
+                } catch (Exception e) { e.printStackTrace(); }
+                selectPendingTask();
+            }
+        }.execute();
+    }
+	
+	// One or two characters match by scanning every title, so those queries are debounced; longer ones
+	// and an empty field show at once.
+	private void onSearchEdited() {
+        int n = Titles.searchKey(searchField.getText()).length();
+        if (n > 0 && n < 3) {
+            shortQueryTimer.restart();
+            return;
         }
+        shortQueryTimer.stop();
+        refreshViews();
     }
-
-	// Increase XP and persist.
-	private void addXp(int amount) {
+	
+	private void clearSearch() {
+        if (!searchField.getText().isEmpty()) searchField.setText("");
+    }
+	
+	private void selectPendingTask() {
+        String id = selectAfterView;
+        selectAfterView = null;
+        if (id != null) selectActive(id);
+    }
+	
+	// The stored tasks behind hits, then the completed tasks whose title starts with the query, found
+	// through the store's title index; read after the writes queued so far. Called off the EDT.
+	private List<Task> readTasks(List<TrigramIndex.Hit> hits, String query) throws Exception {
+        return saver.read(s -> {
+            Map<String, Task> out = new LinkedHashMap<>();
+            for (TrigramIndex.Hit h : hits) {
+                Task t = s.get(h.id);
+                if (t != null) out.put(t.getId(), t);
+            }
+            for (Task t : s.findByTitlePrefix(true, query, SEARCH_LIMIT)) out.putIfAbsent(t.getId(), t);
+            return new ArrayList<>(out.values());
+        }).get();
+    }
+	
+	// Parallel sort for the large lists; stable, so equal tasks keep list order.
+	private static Task[] sorted(List<Task> tasks, Comparator<Task> cmp) {
+        Task[] a = tasks.toArray(new Task[0]);
+        Arrays.parallelSort(a, cmp);
+        return a;
+    }
+	
+	// Split hits into the two lists, in list order or the chosen order. With a paged completed list,
+	// completed matches are the stored tasks read for the hits.
+	private void showMatches(List<TrigramIndex.Hit> hits, List<Task> stored, Comparator<Task> cmp) {
+        int[] activeRows = new int[hits.size()];
+        int[] completedRows = new int[hits.size()];
+        int na = 0, nc = 0;
+        for (TrigramIndex.Hit h : hits) {
+            int i = activeModel.indexOfId(h.id);
+            if (i >= 0) {
+                activeRows[na++] = i;
+            } else if (!pagedCompleted && (i = completedModel.indexOfId(h.id)) >= 0) {
+                completedRows[nc++] = i;
+            }
+        }
+        List<Task> a = rows(activeModel, activeRows, na);
+        List<Task> c;
+        if (pagedCompleted) {
+            c = new ArrayList<>();
+            for (Task t : stored) {
+                if (t.isDone() && activeModel.indexOfId(t.getId()) < 0) c.add(t);
+            }
+        } else {
+            c = rows(completedModel, completedRows, nc);
+        }
+        // At most SEARCH_LIMIT rows each, so sorting here is cheap.
+        if (cmp != null) {
+            a.sort(cmp);
+            c.sort(cmp);
+        }
+        activeView.replaceAll(a);
+        completedView.replaceAll(c);
+        showLists(activeView, completedView);
+    }
+	
+	private static List<Task> rows(TaskRowModel model, int[] rows, int n) {
+        Arrays.sort(rows, 0, n);
+        List<Task> out = new ArrayList<>(n);
+        for (int k = 0; k < n; k++) out.add(model.get(rows[k]));
+        return out;
+    }
+	
+	// Show sorted lists; a null completed array leaves the paged list in stored order.
+	private void showSorted(Task[] active, Task[] completed) {
+        activeView.replaceAll(Arrays.asList(active));
+        if (completed != null) completedView.replaceAll(Arrays.asList(completed));
+        showLists(activeView, completed != null ? completedView : completedModel);
+    }
+	
+	private void showLists(ListModel<Task> active, ListModel<Task> completed) {
+        if (activeList.getModel() != active) activeList.setModel(active);
+        if (completedList.getModel() != completed) completedList.setModel(completed);
+    }
+	
+	// The first paint of the window is the end of startup as the user sees it.
+	@Override
+	public void paint(Graphics g) {
+        super.paint(g);
+        StartupTrace.mark("firstFrame");
+    }
+	
+	// Increase XP and persist; source is the id of the task or habit it was earned by.
+	private void addXp(int amount, String source) {
         xp += amount;
         xpLabel.setText("XP: " + xp);
+        if (ledger != null) {
+            ledger.record(source, amount);
+            return;
+        }
         try {
             cfg.setXp(xp);
         } catch (Exception e) {
@@ -433,9 +884,13 @@ public class MainView extends JFrame {
     }
 	
 	// Decrease XP and persist.
-	private void removeXp(int amount) {
+	private void removeXp(int amount, String source) {
 		xp -= amount;
 		xpLabel.setText("XP: " + xp);
+		if (ledger != null) {
+			ledger.record(source, -amount);
+			return;
+		}
 		try {
             cfg.setXp(xp);
         } catch (Exception e) {
@@ -444,89 +899,253 @@ public class MainView extends JFrame {
 	}
 	
 	
-	// Load tasks from the TaskStore on a background thread.
+	// Load tasks from the TaskStore on a background thread, streaming them into the lists in chunks.
+	// With a paging store only the active tasks and the completed count are read here. Tasks preloaded
+	// during startup are taken as they are instead of read again.
 	private void loadTasks() {
-        SwingWorker<List<Task>,Void> w = new SwingWorker<>() {
+        activeModel.clear();
+        completedModel.clear();
+        // The result tells whether the stats were rebuilt, and so need saving.
+        SwingWorker<Boolean,List<Task>> w = new SwingWorker<>() {
+            private List<Task> chunk = new ArrayList<>(FIRST_LOAD_CHUNK);
+            private int chunkSize = FIRST_LOAD_CHUNK;
+            private int completedCount = -1;
+            // What each task looked like before it was shown (see TaskStats.rebuild), in case the saved
+            // stats need rebuilding; edits after that are counted in statsDuringLoad.
+            private long[] completedAt = new long[1024];
+            private int counted = 0;
+            private int countedDone = 0;
+            private TaskStats loadedStats;
+
+            @Override
+            protected Boolean doInBackground() throws Exception {
+                if (pagedCompleted) {
+                    // Counted before any row is shown, so no edit can race the reset below.
+                    completedCount = store.count(true);
+                    List<Task> active = preloaded != null ? preloaded.get() : preloadTasks(store);
+                    for (Task t : active) {
+                        searchIndex.put(t.getId(), t.getTitle());
+                        count(t);
+                    }
+                    // Completed tasks are only read to rebuild stats that do not match the counts.
+                    loadedStats = loadStats(active.size(), completedCount);
+                    boolean rebuilt = loadedStats == null;
+                    if (rebuilt) {
+                        store.forEachTask(t -> {
+                            if (t.isDone()) count(t);
+                        });
+                        loadedStats = TaskStats.rebuild(completedAt, counted);
+                    }
+                    for (int from = 0; from < active.size(); from += chunkSize, chunkSize = LOAD_CHUNK) {
+                        publish(active.subList(from, Math.min(active.size(), from + chunkSize)));
+                    }
+                    return rebuilt;
+                }
+                if (preloaded != null) {
+                    for (Task t : preloaded.get()) add(t);
+                } else {
+                    store.forEachTask(this::add);
+                }
+                if (!chunk.isEmpty()) publish(chunk);
+                loadedStats = loadStats(counted - countedDone, countedDone);
+                if (loadedStats != null) return false;
+                loadedStats = TaskStats.rebuild(completedAt, counted);
+                return true;
+            }
+            // Saved stats if they agree with the task counts, else null.
+            private TaskStats loadStats(int active, int done) {
+                TaskStats saved = statsStore != null ? statsStore.load() : null;
+                if (saved != null && saved.getActive() == active && saved.getDone() == done) return saved;
+                return null;
+            }
+            private void count(Task t) {
+                if (counted == completedAt.length) completedAt = Arrays.copyOf(completedAt, counted * 2);
+                completedAt[counted++] = t.isDone() ? t.getCompletedAt() : -1;
+                if (t.isDone()) countedDone++;
+            }
+            private void add(Task t) {
+                // Indexed and counted before it is shown, so every later edit finds it in the index and
+                // is counted on top of it.
+                searchIndex.put(t.getId(), t.getTitle());
+                count(t);
+                chunk.add(t);
+                if (chunk.size() >= chunkSize) {
+                    publish(chunk);
+                    // A small first chunk fills the first screen quickly; later chunks amortize events.
+                    chunkSize = LOAD_CHUNK;
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
             @Override
-            protected List<Task> doInBackground() throws Exception {
-                return store.loadTasks();
+            protected void process(List<List<Task>> chunks) {
+                showCompletedCount();
+                List<Task> active = new ArrayList<>();
+                List<Task> completed = new ArrayList<>();
+                for (List<Task> c : chunks) {
+                    for (Task t : c) {
+                        if (t.isDone()) completed.add(t);
+                        else active.add(t);
+                    }
+                }
+                // One interval-added event per list for the whole batch.
+                if (!active.isEmpty()) activeModel.addAll(active);
+                if (!completed.isEmpty()) completedModel.addAll(completed);
             }
             @Override
             protected void done() {
+                boolean rebuilt;
                 try {
-                    List<Task> tasks = get();
-                    activeModel.clear();
-                    completedModel.clear();
-                    for (Task t : tasks) {
-                        if (t.isDone()) completedModel.addElement(t);
-                        else activeModel.addElement(t);
-                    }
-                } catch (Exception e) { e.printStackTrace(); }
+                    rebuilt = get();
+                } catch (Exception e) {
+                    // The lists hold only part of the file, if any of it: saving them would overwrite the
+                    // rest, so whole-list saves stay off until the file loads on a later start.
+                    e.printStackTrace();
+                    Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+                    StartupTrace.finish("interactive");
+                    JOptionPane.showMessageDialog(MainView.this,
+                            "Could not load tasks: " + cause.getMessage() + "\nChanges to the task list will not be saved until they load.",
+                            "Load failed", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                showCompletedCount();
+                if (loadedStats != null) {
+                    loadedStats.add(statsDuringLoad);
+                    stats = loadedStats;
+                    statsDuringLoad = null;
+                    if (rebuilt || saveStatsAfterLoad) saveStats();
+                }
+                loaded = true;
+                searchField.setEnabled(true);
+                orderBox.setEnabled(true);
+                StartupTrace.finish("interactive");
+                if (saveAfterLoad) saveTasksAsync();
+            }
+            private void showCompletedCount() {
+                if (completedCount < 0) return;
+                ((PagedTaskListModel) completedModel).reset(completedCount);
+                completedCount = -1;
             }
         };
         w.execute();
     }
 	
-	private List<Task> getAllTasksFromModel() {
-        List<Task> out = new ArrayList<>();
-        for (int i = 0; i < activeModel.getSize(); i++) out.add(activeModel.get(i));
-        for (int i = 0; i < completedModel.getSize(); i++) out.add(completedModel.get(i));
-        return out;
+	// Paint the first screen of the active list as the window would, but off-screen; stands in for the
+	// window in the headless startup benchmark, where no frame can be created.
+	public static BufferedImage paintFirstScreen(List<Task> tasks, Dimension size) {
+        TaskListModel model = new TaskListModel();
+        for (Task t : tasks) {
+            if (!t.isDone()) model.addElement(t);
+        }
+        JList<Task> list = new JList<>(model);
+        list.setFont(list.getFont().deriveFont(16f));
+        new TaskCellRenderer().install(list);
+        JScrollPane scroll = new JScrollPane(list);
+        scroll.setSize(size.width, size.height / 2);
+        scroll.doLayout();
+        scroll.getViewport().doLayout();
+        BufferedImage img = new BufferedImage(size.width, size.height / 2, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = img.createGraphics();
+        try {
+            scroll.paint(g);
+        } finally {
+            g.dispose();
+        }
+        return img;
     }
 	
-	// Merge active then completed into a single list for saving.
-	private void saveTasksAsync() {
-        List<Task> tasks = getAllTasksFromModel();
-        SwingWorker<Void,Void> w = new SwingWorker<>() {
+	// The tasks loadTasks reads before showing anything: every task, or only the active ones when
+	// completed tasks are paged in. Safe to call on any thread before the window exists.
+	public static List<Task> preloadTasks(TaskStore store) throws Exception {
+        if (store.supportsPaging() && store.supportsRecordUpdates()) return store.loadTasks(false, 0, Integer.MAX_VALUE);
+        return store.loadTasks();
+    }
+	
+	// Active rows followed by completed ones. Active tasks are copied, since edits change them in place
+	// while the writer reads. The completed table's frozen copy is read through instead, so it builds its
+	// Tasks on the writer thread as the save walks it, not here. Only stores without record updates take
+	// whole-list saves, and those never page, so completedTable is set.
+	private List<Task> getAllTasksFromModel() {
+        List<Task> active = activeModel.toList();
+        active.replaceAll(Task::copy);
+        List<Task> completed = completedTable.toList();
+        return new AbstractList<>() {
             @Override
-            protected Void doInBackground() throws Exception {
-                store.saveTasks(tasks);
-                return null;
+            public Task get(int i) {
+                return i < active.size() ? active.get(i) : completed.get(i - active.size());
+            }
+            @Override
+            public int size() {
+                return active.size() + completed.size();
             }
         };
-        w.execute();
-    }
-	
-	// Normalize a title: trim, lowercase, then capitalize first char.
-	private String formatTitle(String s) {
-        if (s == null) return "";
-        String trimmed = s.trim();
-        if (trimmed.isEmpty()) return trimmed;
-        String lower = trimmed.toLowerCase(Locale.getDefault());
-        return Character.toUpperCase(lower.charAt(0)) + lower.substring(1);
     }
 	
-	// Renderer for tasks with simple styling and safe HTML escaping.
-	private class TaskCellRenderer implements ListCellRenderer<Task> {
-        private final JPanel panel = new JPanel(new BorderLayout());
-        private final JLabel label = new JLabel();
+	// The stats an edit updates: the full stats once loaded, the changes since loading began before that.
+	private TaskStats countStats() {
+		return stats != null ? stats : statsDuringLoad;
+	}
 
-        TaskCellRenderer() {
-            label.setOpaque(false);
-            label.setFont(label.getFont().deriveFont(Font.BOLD, 16f));
-            panel.setBorder(BorderFactory.createEmptyBorder(12, 12, 12, 12));
-            panel.add(label, BorderLayout.CENTER);
-        }
+	// Save the stats behind the edit; before loading finishes they are saved once it does.
+	private void saveStats() {
+		if (statsStore == null) return;
+		if (stats == null) {
+			saveStatsAfterLoad = true;
+			return;
+		}
+		statsStore.submit(stats.copy());
+	}
 
-        @Override
-        public Component getListCellRendererComponent(JList<? extends Task> list, Task value, int index, boolean isSelected, boolean cellHasFocus) {
-            String title = value.getTitle();
-            if (value.isDone()) {
-                label.setText("<html><span style='color:gray;'><s>" + escapeHtml(title) + "</s></span></html>");
-            } else {
-                label.setText("<html>" + escapeHtml(title) + "</html>");
-            }
+	private void showStats() {
+		if (stats == null) {
+			JOptionPane.showMessageDialog(this, "Stats are shown once tasks have loaded.", "Stats", JOptionPane.INFORMATION_MESSAGE);
+			return;
+		}
+		StatsDialog.show(this, stats, ledger, habitsPanel != null ? habitsPanel.getHabits() : List.of());
+	}
 
-            if (isSelected) {
-                panel.setBackground(new Color(0xDDEEFF));
-            } else {
-                panel.setBackground(Color.WHITE);
-            }
-            return panel;
+	// Persist one added task: a single record write when the store supports it, else a debounced full save.
+	private void persistUpsert(Task t) {
+        if (store.supportsRecordUpdates()) {
+            Task copy = t.copy();
+            saver.submitRecord(s -> s.upsert(copy));
+        } else {
+            saveTasksAsync();
         }
-
-        private String escapeHtml(String s) {
-            return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+	
+	// Persist an edited or toggled task.
+	private void persistUpdate(Task t) {
+        if (store.supportsRecordUpdates()) {
+            Task copy = t.copy();
+            saver.submitRecord(s -> s.update(copy));
+        } else {
+            saveTasksAsync();
         }
     }
+	
+	// Persist a deleted task.
+	private void persistDelete(Task t) {
+        if (store.supportsRecordUpdates()) {
+            String id = t.getId();
+            saver.submitRecord(s -> s.delete(id));
+        } else {
+            saveTasksAsync();
+        }
+    }
+	
+	// Merge active then completed into a single list and hand it to the save scheduler.
+	// Until loading finishes the models hold only part of the file, so the save waits for it; if loading
+	// fails it never runs.
+	private void saveTasksAsync() {
+        if (!loaded) {
+            saveAfterLoad = true;
+            return;
+        }
+        saver.submit(getAllTasksFromModel());
+    }
+	
+	// Normalize a title: trim, lowercase, then capitalize first char.
+	private String formatTitle(String s) {
+        return Titles.format(s);
+    }
 }
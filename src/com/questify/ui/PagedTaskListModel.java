@@ -0,0 +1,242 @@
+package com.questify.ui;
+
+import com.questify.model.Task;
+
+import javax.swing.AbstractListModel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+// List model that holds only a row count and fetches tasks a page at a time as JList asks for them.
+// Pages live in a small LRU cache; rows whose page is still loading render as a placeholder, and rows
+// whose page failed to load as an error row until the page is retried, with a growing delay.
+// Local edits are applied to cached pages, and fetches issued before an edit are discarded. EDT-only.
+public class PagedTaskListModel extends AbstractListModel<Task> implements TaskRowModel {
+
+	// Loads up to max rows starting at row from of the backing list.
+	public interface PageSource {
+		CompletableFuture<List<Task>> fetch(int from, int max);
+	}
+
+	static final int PAGE_SIZE = 256;
+	private static final int MAX_PAGES = 32;
+	static final Task PLACEHOLDER = new Task("", "Loading...", false);
+	static final Task FAILED = new Task("", "Could not load, retrying...", false);
+	private static final int FIRST_RETRY_MS = 1000;
+	private static final int MAX_RETRY_MS = 30_000;
+
+	// Cached rows of one page; exact means rows past the end are known not to exist.
+	private static final class Page {
+		final ArrayList<Task> rows;
+		boolean exact;
+
+		Page(List<Task> rows, boolean exact) {
+			this.rows = new ArrayList<>(rows);
+			this.exact = exact;
+		}
+	}
+
+	private final PageSource source;
+	private int size = 0;
+	private final LinkedHashMap<Integer, Page> pages = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, Page> eldest) {
+			return size() > MAX_PAGES;
+		}
+	};
+	private final Set<Integer> loading = new HashSet<>();
+	// Pages whose last fetch failed: consecutive failures and when the next fetch may start.
+	private final HashMap<Integer, long[]> failed = new HashMap<>();
+	// Bumped by every local change; a fetch started under an older generation is dropped.
+	private int generation = 0;
+
+	public PagedTaskListModel(PageSource source) {
+		this.source = source;
+	}
+
+	// Whether a row from getElementAt stands in for a task that is not loaded.
+	static boolean isPlaceholder(Task t) {
+		return t == PLACEHOLDER || t == FAILED;
+	}
+
+	// Changes with every local edit; lets a caller tell whether the model moved on during a store read.
+	int generation() {
+		return generation;
+	}
+
+	// Start over with this many rows and no cached pages.
+	public void reset(int rows) {
+		int old = size;
+		size = rows;
+		pages.clear();
+		failed.clear();
+		invalidateFetches();
+		if (old > 0) fireIntervalRemoved(this, 0, old - 1);
+		if (rows > 0) fireIntervalAdded(this, 0, rows - 1);
+	}
+
+	@Override
+	public int getSize() { return size; }
+
+	@Override
+	public Task getElementAt(int i) {
+		Task t = get(i);
+		if (t != null) return t;
+		return failed.containsKey(i / PAGE_SIZE) ? FAILED : PLACEHOLDER;
+	}
+
+	// The task at row i, or null while its page loads.
+	@Override
+	public Task get(int i) {
+		if (i < 0 || i >= size) throw new ArrayIndexOutOfBoundsException(i);
+		int p = i / PAGE_SIZE;
+		Page page = pages.get(p);
+		int off = i % PAGE_SIZE;
+		if (page != null && off < page.rows.size()) return page.rows.get(off);
+		if (page == null || !page.exact) request(p);
+		return null;
+	}
+
+	@Override
+	public void addElement(Task t) {
+		append(t);
+		invalidateFetches();
+		fireIntervalAdded(this, size - 1, size - 1);
+	}
+
+	// Append all tasks with a single interval-added event.
+	@Override
+	public void addAll(Collection<? extends Task> tasks) {
+		if (tasks.isEmpty()) return;
+		int first = size;
+		for (Task t : tasks) append(t);
+		invalidateFetches();
+		fireIntervalAdded(this, first, size - 1);
+	}
+
+	@Override
+	public void set(int i, Task t) {
+		if (i < 0 || i >= size) throw new ArrayIndexOutOfBoundsException(i);
+		Page page = pages.get(i / PAGE_SIZE);
+		int off = i % PAGE_SIZE;
+		if (page != null && off < page.rows.size()) page.rows.set(off, t);
+		invalidateFetches();
+		fireContentsChanged(this, i, i);
+	}
+
+	// Rows after i move up by one; each cached page passes its first row to the page before it.
+	@Override
+	public Task remove(int i) {
+		if (i < 0 || i >= size) throw new ArrayIndexOutOfBoundsException(i);
+		int p = i / PAGE_SIZE;
+		// Iterating entries does not disturb the LRU order.
+		TreeMap<Integer, Page> affected = new TreeMap<>();
+		for (Map.Entry<Integer, Page> e : pages.entrySet()) {
+			if (e.getKey() >= p) affected.put(e.getKey(), e.getValue());
+		}
+		Task removed = null;
+		Page prev = null;
+		int prevKey = -1;
+		for (Map.Entry<Integer, Page> e : affected.entrySet()) {
+			int k = e.getKey();
+			Page page = e.getValue();
+			if (k == p) {
+				int off = i % PAGE_SIZE;
+				if (off < page.rows.size()) removed = page.rows.remove(off);
+			} else if (!page.rows.isEmpty()) {
+				Task first = page.rows.remove(0);
+				if (prev != null && prevKey == k - 1 && prev.rows.size() == PAGE_SIZE - 1) prev.rows.add(first);
+			}
+			prev = page;
+			prevKey = k;
+		}
+		size--;
+		int lastPage = size == 0 ? -1 : (size - 1) / PAGE_SIZE;
+		for (Map.Entry<Integer, Page> e : affected.entrySet()) {
+			int k = e.getKey();
+			if (k > lastPage) {
+				pages.remove(k);
+			} else if (k < lastPage && e.getValue().rows.size() < PAGE_SIZE) {
+				// Its last row came from a page that is not cached.
+				e.getValue().exact = false;
+			}
+		}
+		invalidateFetches();
+		fireIntervalRemoved(this, i, i);
+		return removed;
+	}
+
+	// Searches only the cached pages.
+	@Override
+	public int indexOfId(String id) {
+		for (Map.Entry<Integer, Page> e : pages.entrySet()) {
+			List<Task> rows = e.getValue().rows;
+			for (int j = 0; j < rows.size(); j++) {
+				if (rows.get(j).getId().equals(id)) return e.getKey() * PAGE_SIZE + j;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public void clear() {
+		reset(0);
+	}
+
+	private void append(Task t) {
+		int i = size++;
+		int off = i % PAGE_SIZE;
+		Page page = pages.get(i / PAGE_SIZE);
+		if (page != null && page.rows.size() == off) {
+			page.rows.add(t);
+		} else if (page == null && off == 0) {
+			// First row of a new page: nothing after it exists yet.
+			pages.put(i / PAGE_SIZE, new Page(List.of(t), true));
+		}
+	}
+
+	private void request(int p) {
+		long[] f = failed.get(p);
+		if (f != null && System.nanoTime() - f[1] < 0) return;
+		if (!loading.add(p)) return;
+		int gen = generation;
+		source.fetch(p * PAGE_SIZE, PAGE_SIZE).whenComplete((rows, err) -> SwingUtilities.invokeLater(() -> {
+			if (gen != generation) return;
+			loading.remove(p);
+			if (err != null) {
+				err.printStackTrace();
+				backOff(p);
+				return;
+			}
+			failed.remove(p);
+			pages.put(p, new Page(rows, true));
+			firePage(p);
+		}));
+	}
+
+	// Hold off fetching a failed page, twice as long after each failure in a row, then repaint its rows
+	// so whichever are still shown ask for it again. Until then they show as FAILED.
+	private void backOff(int p) {
+		long[] f = failed.computeIfAbsent(p, k -> new long[2]);
+		int delayMs = (int) Math.min(MAX_RETRY_MS, (long) FIRST_RETRY_MS << Math.min(f[0], 16));
+		f[0]++;
+		f[1] = System.nanoTime() + delayMs * 1_000_000L;
+		firePage(p);
+		Timer retry = new Timer(delayMs, e -> firePage(p));
+		retry.setRepeats(false);
+		retry.start();
+	}
+
+	private void firePage(int p) {
+		int from = p * PAGE_SIZE;
+		int to = Math.min(size, from + PAGE_SIZE) - 1;
+		if (from <= to) fireContentsChanged(this, from, to);
+	}
+
+	// Pages in flight may predate a local change, so their results are ignored and refetched.
+	private void invalidateFetches() {
+		generation++;
+		loading.clear();
+	}
+}
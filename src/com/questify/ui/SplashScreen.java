@@ -1,23 +1,39 @@
 package com.questify.ui;
 
+import com.questify.util.IconCache;
+
 import javax.swing.*;
 import java.awt.*;
-import java.io.File;
-import java.net.URL;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
 
 // Minimal splash screen with progress bar and optional icon.
+// The bar follows real startup stages: it stays up until each one has finished and the minimum time has passed.
 public class SplashScreen {
 	private final JDialog dialog;
     private final JProgressBar bar;
+    private final JLabel iconLabel;
 	
 	private final int minDisplayMs;
+	private final List<String> stageNames = new ArrayList<>();
+	private final List<CompletableFuture<?>> stages = new ArrayList<>();
+	private long shownAt;
+	private boolean closing = false;
 	
 	private static final int ICON_SIZE = 80;
 	
 	
 	public SplashScreen(int minDisplayMs, Dimension size) {
+		this(minDisplayMs, size, CompletableFuture.completedFuture(loadIcon()));
+	}
+	
+	// The icon is shown once it has been decoded; a null result leaves the space blank.
+	public SplashScreen(int minDisplayMs, Dimension size, CompletableFuture<ImageIcon> icon) {
 		this.minDisplayMs = minDisplayMs;
 		
 		dialog = new JDialog((Frame) null, true);
@@ -32,19 +48,13 @@ public class SplashScreen {
         
         topRow.setBorder(BorderFactory.createEmptyBorder(350, 0, 8, 0));
         
-        JLabel iconLabel = new JLabel();
-        ImageIcon icon = loadAndScaleIcon("/resources/questify.png", ICON_SIZE, ICON_SIZE);
-        if (icon == null) {
-            icon = loadAndScaleIcon("/com/questify/ui/resources/questify.png", ICON_SIZE, ICON_SIZE);
-        }
-        if (icon == null) {
-            icon = loadAndScaleIconFromFile("resources/questify.png", ICON_SIZE, ICON_SIZE);
-        }
-        if (icon != null) {
-            iconLabel.setIcon(icon);
-        } else {
-            iconLabel.setPreferredSize(new Dimension(ICON_SIZE, ICON_SIZE));
-        }
+        iconLabel = new JLabel();
+        // Sized up front so the layout does not shift when the icon arrives.
+        iconLabel.setPreferredSize(new Dimension(ICON_SIZE, ICON_SIZE));
+        icon.whenComplete((img, err) -> SwingUtilities.invokeLater(() -> {
+            if (err != null) err.printStackTrace();
+            else if (img != null) iconLabel.setIcon(img);
+        }));
         
 		JLabel title = new JLabel("Questify", JLabel.CENTER);
 		title.setFont(title.getFont().deriveFont(60f).deriveFont(Font.BOLD));
@@ -68,7 +78,7 @@ public class SplashScreen {
 		iconLabel.getAccessibleContext().setAccessibleDescription("App icon for Questify");
 
 		bar.getAccessibleContext().setAccessibleName("Loading progress");
-		bar.getAccessibleContext().setAccessibleDescription("Shows application startup progress percentage");
+		bar.getAccessibleContext().setAccessibleDescription("Shows which startup step is running and how many are done");
 		
 		dialog.getContentPane().add(p);
 		 if (size == null) {
@@ -80,70 +90,86 @@ public class SplashScreen {
 	        dialog.setLocationRelativeTo(null);
 	}
 	
-	// Show splash and wait at least the given minimum time.
+	// Track a startup stage; the bar advances as stages finish, failed or not. Call before showAndWait.
+	public void addStage(String name, CompletableFuture<?> stage) {
+		stageNames.add(name);
+		stages.add(stage);
+	}
+	
+	// Show splash until every stage has finished and at least the minimum time has passed.
 	public void showAndWait() {
-        SwingWorker<Void, Integer> worker = new SwingWorker<>() {
-            @Override
-            protected Void doInBackground() throws Exception {
-            	long start = System.currentTimeMillis();
-            	
-            	final int steps = 60;
-            	final long sleep = Math.max(1, minDisplayMs / steps);
-            	for (int i = 0; i <= steps; i++) {
-                    long elapsed = System.currentTimeMillis() - start;
-                    int progress = (int) Math.min(100, (elapsed * 100.0) / Math.max(1, minDisplayMs));
-                    publish(progress);
-                    if (elapsed >= minDisplayMs) break;
-                    try {
-                        TimeUnit.MILLISECONDS.sleep(sleep);
-                    } catch (InterruptedException ex) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
-                }
-            	publish(100);
-                return null;
-            }
-
-            @Override
-            protected void process(List<Integer> chunks) {
-                int last = chunks.get(chunks.size() - 1);
-                bar.setValue(last);
-            }
-
-            @Override
-            protected void done() {
-                dialog.setVisible(false);
-                dialog.dispose();
-            }
-        };
-        worker.execute();
-        dialog.setVisible(true);
-    }
+		shownAt = System.nanoTime();
+		for (CompletableFuture<?> stage : stages) {
+			stage.whenComplete((r, err) -> SwingUtilities.invokeLater(this::updateProgress));
+		}
+		updateProgress();
+		dialog.setVisible(true); // modal: returns once closed
+	}
 	
-	// Load icon from classpath and scale it.
-    private ImageIcon loadAndScaleIcon(String resourcePath, int w, int h) {
+	// Show how many stages are done and name the first one still running.
+	private void updateProgress() {
+		int done = 0;
+		String running = null;
+		for (int i = 0; i < stages.size(); i++) {
+			if (stages.get(i).isDone()) done++;
+			else if (running == null) running = stageNames.get(i);
+		}
+		bar.setValue(stages.isEmpty() ? 100 : done * 100 / stages.size());
+		bar.setString(running != null ? running + "..." : "Ready");
+		if (running == null && !closing) {
+			closing = true;
+			long elapsedMs = (System.nanoTime() - shownAt) / 1_000_000;
+			// Closed from a timer even with no time left, so it runs after the modal dialog is up.
+			Timer t = new Timer((int) Math.max(0, minDisplayMs - elapsedMs), e -> {
+				dialog.setVisible(false);
+				dialog.dispose();
+			});
+			t.setRepeats(false);
+			t.start();
+		}
+	}
+	
+	// The app icon scaled to splash size, or null if it cannot be found. Safe to call off the EDT.
+	public static ImageIcon loadIcon() {
+		return loadIcon(null);
+	}
+	
+	// As above, reusing the scaled icon cached under cacheDir by an earlier launch (null for no cache).
+	public static ImageIcon loadIcon(Path cacheDir) {
+		byte[] source = readIconBytes("/resources/questify.png");
+        if (source == null) {
+            source = readIconBytes("/com/questify/ui/resources/questify.png");
+        }
+        if (source == null) {
+            source = readIconBytesFromFile("resources/questify.png");
+        }
+        if (source == null) return null;
         try {
-            URL u = getClass().getResource(resourcePath);
-            if (u == null) return null;
-            ImageIcon raw = new ImageIcon(u);
-            Image img = raw.getImage().getScaledInstance(w, h, Image.SCALE_SMOOTH);
-            return new ImageIcon(img);
+            BufferedImage img = cacheDir != null
+                    ? new IconCache(cacheDir).load(source, ICON_SIZE, ICON_SIZE)
+                    : IconCache.decodeAndScale(source, ICON_SIZE, ICON_SIZE);
+            return img != null ? new ImageIcon(img) : null;
         } catch (Exception ex) {
+            ex.printStackTrace();
+            return null;
+        }
+	}
+	
+	// Read the icon file from the classpath.
+    private static byte[] readIconBytes(String resourcePath) {
+        try (InputStream in = SplashScreen.class.getResourceAsStream(resourcePath)) {
+            return in != null ? in.readAllBytes() : null;
+        } catch (IOException ex) {
             return null;
         }
     }
 
-    // Load icon from filesystem and scale it.
-    private ImageIcon loadAndScaleIconFromFile(String filePath, int w, int h) {
+    // Read the icon file from the filesystem.
+    private static byte[] readIconBytesFromFile(String filePath) {
         try {
-            File f = new File(filePath);
-            if (!f.exists()) return null;
-            URL u = f.toURI().toURL();
-            ImageIcon raw = new ImageIcon(u);
-            Image img = raw.getImage().getScaledInstance(w, h, Image.SCALE_SMOOTH);
-            return new ImageIcon(img);
-        } catch (Exception ex) {
+            Path f = Paths.get(filePath);
+            return Files.exists(f) ? Files.readAllBytes(f) : null;
+        } catch (IOException ex) {
             return null;
         }
     }
@@ -0,0 +1,71 @@
+package com.questify.ui;
+
+import com.questify.model.Habit;
+import com.questify.model.TaskStats;
+import com.questify.store.XpLedger;
+
+import javax.swing.*;
+import java.awt.*;
+import java.time.LocalDate;
+import java.util.List;
+
+// Read-only summary of progress: task counts, completions per day and streaks from TaskStats, XP from
+// the ledger's daily rollup and each habit's completion rate. Everything shown is already aggregated,
+// so opening it does not scan tasks.
+final class StatsDialog {
+	private StatsDialog() {}
+
+	// ledger may be null, habits empty.
+	static void show(Component parent, TaskStats stats, XpLedger ledger, List<Habit> habits) {
+		long today = LocalDate.now().toEpochDay();
+		JPanel rows = new JPanel(new GridLayout(0, 2, 12, 4));
+		row(rows, "Active tasks", Integer.toString(stats.getActive()));
+		row(rows, "Completed tasks", Integer.toString(stats.getDone()));
+		row(rows, "Done today", Integer.toString(stats.doneOn(today)));
+		row(rows, "Done in the last 7 days", Long.toString(sum(stats.perDay(today - 6, today + 1))));
+		row(rows, "Done in the last 30 days", Long.toString(sum(stats.perDay(today - 29, today + 1))));
+		row(rows, "Current streak", days(stats.currentStreak(today)));
+		row(rows, "Longest streak", days(stats.longestStreak()));
+		if (ledger != null) {
+			row(rows, "XP today", Long.toString(ledger.sum(today, today + 1)));
+			row(rows, "XP in the last 7 days", Long.toString(ledger.sum(today - 6, today + 1)));
+			row(rows, "XP in the last year", Long.toString(ledger.sum(today - 364, today + 1)));
+		}
+
+		JPanel content = new JPanel(new BorderLayout(0, 12));
+		content.add(rows, BorderLayout.NORTH);
+		if (!habits.isEmpty()) {
+			JPanel habitRows = new JPanel(new GridLayout(0, 2, 12, 4));
+			habitRows.setBorder(BorderFactory.createTitledBorder("Habits, done of days due"));
+			for (Habit h : habits) {
+				// Days due so far including today, counted from the rule; done is a popcount of the bitmap,
+				// capped in case the rule was changed to fewer days.
+				long due = h.getRule().count(h.getStartDay(), h.getStartDay(), today + 1);
+				long done = Math.min(h.completions(), due);
+				String rate = due == 0 ? "not due yet" : done + " of " + due + " (" + Math.round(100.0 * done / due) + "%)";
+				row(habitRows, h.getTitle(), rate);
+			}
+			content.add(habitRows, BorderLayout.CENTER);
+		}
+		JOptionPane.showMessageDialog(parent, content, "Stats", JOptionPane.PLAIN_MESSAGE);
+	}
+
+	private static void row(JPanel rows, String name, String value) {
+		JLabel label = new JLabel(name);
+		JLabel v = new JLabel(value);
+		label.setLabelFor(v);
+		v.getAccessibleContext().setAccessibleName(name + ": " + value);
+		rows.add(label);
+		rows.add(v);
+	}
+
+	private static String days(int n) {
+		return n == 1 ? "1 day" : n + " days";
+	}
+
+	private static long sum(int[] days) {
+		long n = 0;
+		for (int d : days) n += d;
+		return n;
+	}
+}
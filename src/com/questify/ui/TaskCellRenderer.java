@@ -0,0 +1,143 @@
+package com.questify.ui;
+
+import com.questify.model.Task;
+
+import javax.accessibility.AccessibleContext;
+import javax.accessibility.AccessibleRole;
+import javax.swing.*;
+import java.awt.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Paints task rows directly (no HTML views): gray struck-through text for done tasks,
+// with the fitted text and its width cached per task id and title.
+class TaskCellRenderer extends JComponent implements ListCellRenderer<Task> {
+	private static final Color SELECTED_BG = new Color(0xDDEEFF);
+	private static final Color DONE_FG = Color.GRAY;
+	private static final int PAD = 12;
+	private static final int CACHE_SIZE = 2048;
+	private static final String ELLIPSIS = "\u2026";
+
+	// Text fitted to a given width; valid while the task's title and the row width are unchanged.
+	private static final class Line {
+		final String title;
+		final int avail;
+		final String text;
+		final int width;
+
+		Line(String title, int avail, String text, int width) {
+			this.title = title;
+			this.avail = avail;
+			this.text = text;
+			this.width = width;
+		}
+	}
+
+	private final Font font;
+	private final Map<?, ?> textHints;
+	private final Map<String, Line> cache = new LinkedHashMap<>(256, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Line> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	private Task task;
+	private boolean selected;
+	private Color foreground = Color.BLACK;
+
+	TaskCellRenderer() {
+		Font base = UIManager.getFont("Label.font");
+		if (base == null) base = new Font("SansSerif", Font.PLAIN, 16);
+		font = base.deriveFont(Font.BOLD, 16f);
+		Object hints = Toolkit.getDefaultToolkit().getDesktopProperty("awt.font.desktophints");
+		textHints = hints instanceof Map ? (Map<?, ?>) hints : null;
+		setOpaque(true);
+	}
+
+	// Row height for lists using this renderer; set as the fixed cell height so JList never measures rows.
+	int cellHeight(JComponent c) {
+		return c.getFontMetrics(font).getHeight() + 2 * PAD;
+	}
+
+	// Configure a list for fast layout: fixed row height, and a token width so the list tracks the viewport.
+	void install(JList<Task> list) {
+		list.setCellRenderer(this);
+		list.setFixedCellHeight(cellHeight(list));
+		list.setFixedCellWidth(1);
+	}
+
+	@Override
+	public Component getListCellRendererComponent(JList<? extends Task> list, Task value, int index, boolean isSelected, boolean cellHasFocus) {
+		task = value;
+		selected = isSelected;
+		foreground = list.getForeground();
+		return this;
+	}
+
+	@Override
+	protected void paintComponent(Graphics g) {
+		Graphics2D g2 = (Graphics2D) g;
+		g2.setColor(selected ? SELECTED_BG : Color.WHITE);
+		g2.fillRect(0, 0, getWidth(), getHeight());
+		if (task == null) return;
+
+		if (textHints != null) g2.addRenderingHints(textHints);
+
+		g2.setFont(font);
+		FontMetrics fm = g2.getFontMetrics();
+		Line line = fit(task, fm, getWidth() - 2 * PAD);
+		int baseline = (getHeight() - fm.getHeight()) / 2 + fm.getAscent();
+
+		g2.setColor(task.isDone() ? DONE_FG : foreground);
+		g2.drawString(line.text, PAD, baseline);
+		if (task.isDone()) {
+			int y = baseline - fm.getAscent() / 3;
+			g2.drawLine(PAD, y, PAD + line.width, y);
+		}
+	}
+
+	// Fitted text for the task, truncated with an ellipsis if wider than avail.
+	private Line fit(Task t, FontMetrics fm, int avail) {
+		String title = t.getTitle();
+		Line line = cache.get(t.getId());
+		if (line != null && line.avail == avail && line.title.equals(title)) return line;
+
+		String text = title;
+		int w = fm.stringWidth(text);
+		if (w > avail && avail > 0) {
+			// Longest prefix that fits next to the ellipsis, by binary search.
+			int room = avail - fm.stringWidth(ELLIPSIS);
+			int lo = 0, hi = title.length();
+			while (lo < hi) {
+				int mid = (lo + hi + 1) >>> 1;
+				if (fm.stringWidth(title.substring(0, mid)) <= room) lo = mid;
+				else hi = mid - 1;
+			}
+			text = title.substring(0, lo) + ELLIPSIS;
+			w = fm.stringWidth(text);
+		}
+		line = new Line(title, avail, text, w);
+		cache.put(t.getId(), line);
+		return line;
+	}
+
+	@Override
+	public AccessibleContext getAccessibleContext() {
+		if (accessibleContext == null) {
+			accessibleContext = new AccessibleJComponent() {
+				@Override
+				public String getAccessibleName() {
+					if (task == null) return null;
+					return task.isDone() ? task.getTitle() + " (completed)" : task.getTitle();
+				}
+
+				@Override
+				public AccessibleRole getAccessibleRole() {
+					return AccessibleRole.LABEL;
+				}
+			};
+		}
+		return accessibleContext;
+	}
+}
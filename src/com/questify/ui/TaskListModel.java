@@ -0,0 +1,170 @@
+package com.questify.ui;
+
+import com.questify.model.Task;
+
+import javax.swing.AbstractListModel;
+import java.util.*;
+
+// Array-backed list model for tasks with bulk operations and id lookup.
+// Bulk calls fire a bounded number of events however many rows they touch; EDT-only like other Swing models.
+public class TaskListModel extends AbstractListModel<Task> implements TaskRowModel {
+	// removeAll reports each removed run of rows up to this many runs, and a reset of the list past it.
+	static final int MAX_RUN_EVENTS = 64;
+
+	private Task[] items = new Task[16];
+	private int size = 0;
+
+	// id -> index; rows at or after indexValidFrom are missing or stale and are indexed on the next lookup.
+	// An insert or removal already shifts every row after it, and the first lookup after it re-indexes
+	// those same rows once, so lookups are O(1) amortized over the edits; only a lookup that follows an
+	// edit pays the O(N) re-index, and only the first.
+	private final HashMap<String, Integer> index = new HashMap<>();
+	private int indexValidFrom = 0;
+
+	@Override
+	public int getSize() { return size; }
+
+	@Override
+	public Task getElementAt(int i) { return get(i); }
+
+	@Override
+	public Task get(int i) {
+		if (i < 0 || i >= size) throw new ArrayIndexOutOfBoundsException(i);
+		return items[i];
+	}
+
+	@Override
+	public void addElement(Task t) {
+		ensureCapacity(size + 1);
+		items[size++] = t;
+		fireIntervalAdded(this, size - 1, size - 1);
+	}
+
+	// Insert at row i, shifting later rows down.
+	public void insert(int i, Task t) {
+		if (i < 0 || i > size) throw new ArrayIndexOutOfBoundsException(i);
+		ensureCapacity(size + 1);
+		System.arraycopy(items, i, items, i + 1, size - i);
+		items[i] = t;
+		size++;
+		indexValidFrom = Math.min(indexValidFrom, i);
+		fireIntervalAdded(this, i, i);
+	}
+
+	@Override
+	public void set(int i, Task t) {
+		Task old = get(i);
+		items[i] = t;
+		if (!old.getId().equals(t.getId())) {
+			index.remove(old.getId());
+			if (i < indexValidFrom) index.put(t.getId(), i);
+		}
+		fireContentsChanged(this, i, i);
+	}
+
+	@Override
+	public Task remove(int i) {
+		Task old = get(i);
+		System.arraycopy(items, i + 1, items, i, size - i - 1);
+		items[--size] = null;
+		index.remove(old.getId());
+		indexValidFrom = Math.min(indexValidFrom, i);
+		fireIntervalRemoved(this, i, i);
+		return old;
+	}
+
+	@Override
+	public void clear() {
+		int old = size;
+		Arrays.fill(items, 0, size, null);
+		size = 0;
+		index.clear();
+		indexValidFrom = 0;
+		if (old > 0) fireIntervalRemoved(this, 0, old - 1);
+	}
+
+	// Append all tasks with a single interval-added event.
+	@Override
+	public void addAll(Collection<? extends Task> tasks) {
+		if (tasks.isEmpty()) return;
+		int first = size;
+		ensureCapacity(size + tasks.size());
+		for (Task t : tasks) items[size++] = t;
+		fireIntervalAdded(this, first, size - 1);
+	}
+
+	// Remove every task whose id is in ids, compacting in one pass. Each contiguous run of removed rows is
+	// reported as its own interval, last run first so every event's rows are as listeners last saw them,
+	// which keeps selections on the rows that stay. Past MAX_RUN_EVENTS runs the whole list is reported as
+	// removed and re-added instead, which clears any selection.
+	public void removeAll(Collection<String> ids) {
+		if (ids.isEmpty() || size == 0) return;
+		Set<String> drop = ids instanceof Set ? (Set<String>) ids : new HashSet<>(ids);
+		int[] runs = new int[8]; // first and last row of each removed run
+		int nRuns = 0;
+		int w = 0;
+		for (int r = 0; r < size; r++) {
+			Task t = items[r];
+			if (!drop.contains(t.getId())) {
+				items[w++] = t;
+				continue;
+			}
+			index.remove(t.getId());
+			if (nRuns > 0 && runs[2 * nRuns - 1] == r - 1) {
+				runs[2 * nRuns - 1] = r;
+			} else {
+				if (2 * nRuns == runs.length) runs = Arrays.copyOf(runs, runs.length * 2);
+				runs[2 * nRuns] = r;
+				runs[2 * nRuns + 1] = r;
+				nRuns++;
+			}
+		}
+		if (nRuns == 0) return;
+		int oldSize = size;
+		Arrays.fill(items, w, oldSize, null);
+		size = w;
+		indexValidFrom = Math.min(indexValidFrom, runs[0]);
+		if (nRuns <= MAX_RUN_EVENTS) {
+			for (int k = nRuns - 1; k >= 0; k--) fireIntervalRemoved(this, runs[2 * k], runs[2 * k + 1]);
+		} else {
+			fireIntervalRemoved(this, 0, oldSize - 1);
+			if (size > 0) fireIntervalAdded(this, 0, size - 1);
+		}
+	}
+
+	// Swap in a new list of tasks, e.g. after a reload or re-sort.
+	public void replaceAll(Collection<? extends Task> tasks) {
+		int oldSize = size;
+		Arrays.fill(items, 0, size, null);
+		size = 0;
+		ensureCapacity(tasks.size());
+		for (Task t : tasks) items[size++] = t;
+		index.clear();
+		indexValidFrom = 0;
+		// Every kept row changed; the tail is removed or added, so selection stays in range.
+		if (size < oldSize) fireIntervalRemoved(this, size, oldSize - 1);
+		int kept = Math.min(size, oldSize);
+		if (kept > 0) fireContentsChanged(this, 0, kept - 1);
+		if (size > oldSize) fireIntervalAdded(this, oldSize, size - 1);
+	}
+
+	// Index of the task with this id, or -1.
+	@Override
+	public int indexOfId(String id) {
+		if (indexValidFrom < size) {
+			for (int i = indexValidFrom; i < size; i++) index.put(items[i].getId(), i);
+			indexValidFrom = size;
+		}
+		Integer i = index.get(id);
+		return i == null ? -1 : i;
+	}
+
+	// Every task in row order, as a copy.
+	public List<Task> toList() {
+		return new ArrayList<>(Arrays.asList(items).subList(0, size));
+	}
+
+	private void ensureCapacity(int n) {
+		if (n > items.length) items = Arrays.copyOf(items, Math.max(n, items.length * 2));
+	}
+}
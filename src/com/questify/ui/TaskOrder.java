@@ -0,0 +1,44 @@
+package com.questify.ui;
+
+import com.questify.model.Task;
+
+import java.util.Comparator;
+
+// Orders the task lists can be shown in. Ties keep list order, since every sort used with these is stable.
+enum TaskOrder {
+	LIST("List order", null),
+	TITLE("Title", Comparator.comparing(Task::getTitle, String.CASE_INSENSITIVE_ORDER)),
+	NEWEST("Newest first", Comparator.comparingLong(Task::getCreatedAt).reversed()),
+	RECENTLY_COMPLETED("Recently completed", Comparator.comparingLong(Task::getCompletedAt).reversed());
+
+	private final String label;
+	private final Comparator<Task> comparator;
+
+	TaskOrder(String label, Comparator<Task> comparator) {
+		this.label = label;
+		this.comparator = comparator;
+	}
+
+	// Null for LIST, which shows the models as they are.
+	Comparator<Task> comparator() {
+		return comparator;
+	}
+
+	// Row at which t belongs in a model already in this order: after any equal rows, so it lands
+	// where a stable re-sort would put a task appended to the list.
+	int insertionPoint(TaskListModel m, Task t) {
+		int lo = 0;
+		int hi = m.getSize();
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (comparator.compare(m.get(mid), t) <= 0) lo = mid + 1;
+			else hi = mid;
+		}
+		return lo;
+	}
+
+	@Override
+	public String toString() {
+		return label;
+	}
+}
@@ -0,0 +1,26 @@
+package com.questify.ui;
+
+import com.questify.model.Task;
+
+import javax.swing.ListModel;
+import java.util.Collection;
+
+// Row operations MainView needs from a task list, whether it holds every task or pages them in.
+interface TaskRowModel extends ListModel<Task> {
+	// The task at row i, or null if it is not in memory yet.
+	Task get(int i);
+
+	void addElement(Task t);
+
+	void set(int i, Task t);
+
+	// Remove row i; returns the removed task, or null if it was not in memory.
+	Task remove(int i);
+
+	void clear();
+
+	void addAll(Collection<? extends Task> tasks);
+
+	// Row of the task with this id, or -1 if it is absent or not in memory.
+	int indexOfId(String id);
+}
@@ -0,0 +1,96 @@
+package com.questify.ui;
+
+import com.questify.model.Task;
+import com.questify.model.TaskTable;
+
+import javax.swing.AbstractListModel;
+import java.util.*;
+
+// List model over a columnar TaskTable, for lists too long to keep a Task object per row.
+// Task views are built only for rows JList asks for and kept in a small row-keyed cache, so repaints
+// reuse them. A view is a copy: callers change a task by passing it back through set. EDT-only.
+public class TaskTableModel extends AbstractListModel<Task> implements TaskRowModel {
+	private static final int VIEW_CACHE = 512; // a few screens of rows
+
+	private final TaskTable table = new TaskTable();
+	private final Task[] views = new Task[VIEW_CACHE];
+	private final int[] viewRows = new int[VIEW_CACHE];
+
+	public TaskTableModel() {
+		Arrays.fill(viewRows, -1);
+	}
+
+	@Override
+	public int getSize() { return table.size(); }
+
+	@Override
+	public Task getElementAt(int i) { return get(i); }
+
+	@Override
+	public Task get(int i) {
+		int slot = i % VIEW_CACHE;
+		if (viewRows[slot] == i) return views[slot];
+		Task t = table.get(i);
+		views[slot] = t;
+		viewRows[slot] = i;
+		return t;
+	}
+
+	@Override
+	public void addElement(Task t) {
+		table.add(t);
+		int i = table.size() - 1;
+		fireIntervalAdded(this, i, i);
+	}
+
+	// Append all tasks with a single interval-added event.
+	@Override
+	public void addAll(Collection<? extends Task> tasks) {
+		if (tasks.isEmpty()) return;
+		int first = table.size();
+		for (Task t : tasks) table.add(t);
+		fireIntervalAdded(this, first, table.size() - 1);
+	}
+
+	@Override
+	public void set(int i, Task t) {
+		table.set(i, t);
+		views[i % VIEW_CACHE] = t;
+		viewRows[i % VIEW_CACHE] = i;
+		fireContentsChanged(this, i, i);
+	}
+
+	@Override
+	public Task remove(int i) {
+		Task old = get(i);
+		table.remove(i);
+		dropViews();
+		fireIntervalRemoved(this, i, i);
+		return old;
+	}
+
+	@Override
+	public void clear() {
+		int old = table.size();
+		table.clear();
+		dropViews();
+		if (old > 0) fireIntervalRemoved(this, 0, old - 1);
+	}
+
+	@Override
+	public int indexOfId(String id) {
+		return table.indexOf(id);
+	}
+
+	// A frozen copy whose rows become Tasks as they are read, so handing it to a background save or
+	// sort costs a few array copies here rather than a Task per row.
+	public List<Task> toList() {
+		return table.copy().asList();
+	}
+
+	// Rows moved, so cached views may sit under the wrong row number.
+	private void dropViews() {
+		Arrays.fill(views, null);
+		Arrays.fill(viewRows, -1);
+	}
+}
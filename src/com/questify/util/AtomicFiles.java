@@ -0,0 +1,75 @@
+package com.questify.util;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+
+// Crash-safe file replacement: write a sibling temp file, optionally fsync, then rename over the target.
+public final class AtomicFiles {
+
+	// How hard a write tries to reach stable storage before returning.
+	public enum Durability {
+		NONE,               // rename only; a crash may lose the latest write but never leaves a torn file
+		FILE,               // fsync the temp file before renaming
+		FILE_AND_DIRECTORY; // also fsync the parent directory so the rename itself survives a crash
+
+		// Parse "none", "file" or "dir", falling back to FILE.
+		public static Durability parse(String s) {
+			if (s == null) return FILE;
+			switch (s.trim().toLowerCase()) {
+				case "none": return NONE;
+				case "dir":
+				case "directory":
+				case "file_and_directory": return FILE_AND_DIRECTORY;
+				default: return FILE;
+			}
+		}
+	}
+
+	// Producer of the new file contents.
+	public interface Content {
+		void writeTo(OutputStream out) throws IOException;
+	}
+
+	private AtomicFiles() {}
+
+	// Replace target with the given content; the old file stays intact if anything fails.
+	public static void write(Path target, Durability durability, Content content) throws IOException {
+		Path dir = target.toAbsolutePath().getParent();
+		Files.createDirectories(dir);
+		Path tmp = Files.createTempFile(dir, "." + target.getFileName(), ".tmp");
+		try {
+			try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+				OutputStream out = new BufferedOutputStream(Channels.newOutputStream(ch), 64 * 1024);
+				content.writeTo(out);
+				out.flush();
+				if (durability != Durability.NONE) ch.force(true);
+			}
+			commit(tmp, target, durability);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	// Rename an already written (and, if required, fsynced) temp file over target.
+	public static void commit(Path tmp, Path target, Durability durability) throws IOException {
+		move(tmp, target);
+		if (durability == Durability.FILE_AND_DIRECTORY) syncDirectory(target.toAbsolutePath().getParent());
+	}
+
+	// Flush directory metadata; not supported on every platform, so failures are ignored.
+	public static void syncDirectory(Path dir) {
+		try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+			ch.force(true);
+		} catch (IOException e) { /* e.g. Windows cannot open directories */ }
+	}
+
+	private static void move(Path tmp, Path target) throws IOException {
+		try {
+			Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+}
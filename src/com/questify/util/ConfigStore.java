@@ -1,66 +1,149 @@
 package com.questify.util;
 
 import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.io.*;
+import com.questify.diag.ConfigIoEvent;
+import com.questify.util.AtomicFiles.Durability;
 
 // Small properties-backed config store for simple app preferences.
+// Reads come from an in-memory snapshot; each change hands a copy to a WriteBehind, which writes the newest.
 public class ConfigStore {
+	// How often reads check the file's mtime for edits made outside the app.
+	private static final long MTIME_CHECK_INTERVAL_NS = TimeUnit.SECONDS.toNanos(1);
+
 	private final Path cfgFile;
-	
+	private final Durability durability;
+	private final WriteBehind<Properties> writer;
+
+	private Properties cache;
+	private FileTime cachedMtime;
+	private long lastMtimeCheck;
+
 	public ConfigStore(Path cfgFile) {
+		this(cfgFile, Durability.FILE);
+	}
+
+	public ConfigStore(Path cfgFile, Durability durability) {
 		this.cfgFile = cfgFile;
+		this.durability = durability;
+		this.writer = new WriteBehind<>("questify-config-writer", WriteBehind.DEFAULT_DELAY_MS, this::save);
 	}
-	
+
+	// Parse the file now, e.g. on a startup thread, so the first read on the EDT finds it cached.
+	public synchronized void preload() {
+		snapshot();
+	}
+
 	// Return whether the privacy policy was accepted.
-	public boolean isPrivacyAccepted() {
-		Properties p = load();
-		return Boolean.parseBoolean(p.getProperty("privacyAccepted", "false"));
+	public synchronized boolean isPrivacyAccepted() {
+		return Boolean.parseBoolean(snapshot().getProperty("privacyAccepted", "false"));
 	}
-	
+
 	// Persist privacy acceptance.
-	public void setPrivacyAccepted(boolean v) {
-		Properties p = load();
-		p.setProperty("privacyAccepted", Boolean.toString(v));
-		save(p);
+	public synchronized void setPrivacyAccepted(boolean v) {
+		snapshot().setProperty("privacyAccepted", Boolean.toString(v));
+		markDirty();
 	}
-	
+
 	// Read XP value from properties.
-	public int getXp() {
-		Properties p = load();
-		String s = p.getProperty("xp", "0");
+	public synchronized int getXp() {
+		String s = snapshot().getProperty("xp", "0");
 		try {
             return Integer.parseInt(s);
         } catch (NumberFormatException e) {
             return 0;
         }
 	}
-	
+
 	// Save XP value.
-	public void setXp(int xp) {
-        Properties p = load();
-        p.setProperty("xp", Integer.toString(xp));
-        save(p);
+	public synchronized void setXp(int xp) {
+        snapshot().setProperty("xp", Integer.toString(xp));
+        markDirty();
     }
-	
+
+	// Drop the XP value once it has moved to the XP ledger.
+	public synchronized void removeXp() {
+		if (snapshot().remove("xp") != null) markDirty();
+	}
+
+	// Write pending changes now, retrying one that failed; call before the app exits.
+	public void flush() {
+		writer.flush();
+	}
+
+	// Current snapshot, reparsed only if the file changed on disk and nothing is pending.
+	private Properties snapshot() {
+		if (cache == null) {
+			reload();
+		} else if (!writer.hasUnsaved() && System.nanoTime() - lastMtimeCheck > MTIME_CHECK_INTERVAL_NS) {
+			lastMtimeCheck = System.nanoTime();
+			FileTime now = mtime();
+			if (now != null && !now.equals(cachedMtime)) reload();
+		}
+		return cache;
+	}
+
+	private void reload() {
+		lastMtimeCheck = System.nanoTime();
+		cachedMtime = mtime();
+		cache = load();
+	}
+
+	private void markDirty() {
+		writer.submit(copyOf(cache));
+	}
+
+	private void commit(ConfigIoEvent event, String operation) {
+		event.end();
+		if (!event.shouldCommit()) return;
+		event.operation = operation;
+		event.path = cfgFile.toString();
+		try {
+			event.bytes = Files.size(cfgFile);
+		} catch (IOException e) { /* leave 0 */ }
+		event.commit();
+	}
+
+	private FileTime mtime() {
+		try {
+			return Files.getLastModifiedTime(cfgFile);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	private static Properties copyOf(Properties p) {
+		Properties copy = new Properties();
+		copy.putAll(p);
+		return copy;
+	}
+
 	// Load properties file if present.
 	private Properties load() {
 		Properties p = new Properties();
 		if (Files.exists(cfgFile)) {
+			ConfigIoEvent event = new ConfigIoEvent();
+			event.begin();
 			try (InputStream in = Files.newInputStream(cfgFile)){
 				p.load(in);
 			} catch (IOException e) { /* ignore read errors and use defaults */ }
+			commit(event, "load");
 		}
 		return p;
 	}
-	
-	// Save properties to disk.
-	private void save(Properties p) {
-        try {
-            Files.createDirectories(cfgFile.getParent());
-            try (OutputStream out = Files.newOutputStream(cfgFile)) {
-                p.store(out, "Questify config");
-            }
-        } catch (IOException e) { e.printStackTrace(); }
-    }
+
+	// Save properties to disk via an atomic replace; runs on the writer thread. Until it succeeds the
+	// change stays unsaved, so reads keep it instead of reloading the file and flush() retries it.
+	private void save(Properties p) throws IOException {
+		ConfigIoEvent event = new ConfigIoEvent();
+		event.begin();
+		AtomicFiles.write(cfgFile, durability, out -> p.store(out, "Questify config"));
+		commit(event, "save");
+		synchronized (this) {
+			cachedMtime = mtime();
+		}
+	}
 }
@@ -0,0 +1,118 @@
+package com.questify.util;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// Scaled images kept on disk as raw ARGB pixels, keyed by a hash of the source bytes and the target
+// size, so later launches read a few kilobytes instead of decoding and scaling the source again.
+// A missing, stale or damaged entry is rebuilt; a cache that cannot be written only costs the speedup.
+public final class IconCache {
+	private static final int MAGIC = 0x51494331; // "QIC1"
+	private static final int HEADER = 12;        // magic, width, height
+
+	private final Path dir;
+
+	public IconCache(Path dir) {
+		this.dir = dir;
+	}
+
+	// The image in source scaled to w x h, or null if source is not a readable image.
+	public BufferedImage load(byte[] source, int w, int h) throws IOException {
+		String suffix = "-" + w + "x" + h + ".argb";
+		Path file = dir.resolve("icon-" + hash(source) + suffix);
+		BufferedImage img = read(file, w, h);
+		if (img != null) return img;
+		img = decodeAndScale(source, w, h);
+		if (img == null) return null;
+		try {
+			write(file, img);
+			removeStale(file, suffix);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return img;
+	}
+
+	// Decode with ImageIO and scale, without touching the cache; null if source is not an image.
+	public static BufferedImage decodeAndScale(byte[] source, int w, int h) throws IOException {
+		BufferedImage raw = ImageIO.read(new ByteArrayInputStream(source));
+		return raw == null ? null : scale(raw, w, h);
+	}
+
+	// Bilinear scaling in halving steps: one bilinear pass only samples four source pixels, so a
+	// large reduction done in one step would skip most of the image and alias.
+	public static BufferedImage scale(BufferedImage src, int w, int h) {
+		BufferedImage cur = src;
+		int cw = src.getWidth();
+		int ch = src.getHeight();
+		do {
+			cw = Math.max(w, cw / 2);
+			ch = Math.max(h, ch / 2);
+			if (cw < 2 * w && ch < 2 * h) {
+				cw = w;
+				ch = h;
+			}
+			BufferedImage next = new BufferedImage(cw, ch, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g = next.createGraphics();
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.drawImage(cur, 0, 0, cw, ch, null);
+			g.dispose();
+			cur = next;
+		} while (cw != w || ch != h);
+		return cur;
+	}
+
+	private static BufferedImage read(Path file, int w, int h) {
+		byte[] bytes;
+		try {
+			bytes = Files.readAllBytes(file);
+		} catch (IOException e) {
+			return null;
+		}
+		ByteBuffer b = ByteBuffer.wrap(bytes);
+		if (bytes.length != HEADER + 4L * w * h || b.getInt() != MAGIC || b.getInt() != w || b.getInt() != h) return null;
+		int[] px = new int[w * h];
+		b.asIntBuffer().get(px);
+		BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+		img.getRaster().setDataElements(0, 0, w, h, px);
+		return img;
+	}
+
+	private static void write(Path file, BufferedImage img) throws IOException {
+		int w = img.getWidth();
+		int h = img.getHeight();
+		int[] px = (int[]) img.getRaster().getDataElements(0, 0, w, h, null);
+		ByteBuffer b = ByteBuffer.allocate(HEADER + 4 * px.length);
+		b.putInt(MAGIC).putInt(w).putInt(h);
+		b.asIntBuffer().put(px);
+		// Losing an entry in a crash only means rebuilding it, so skip the fsync.
+		AtomicFiles.write(file, AtomicFiles.Durability.NONE, out -> out.write(b.array()));
+	}
+
+	// Entries of the same size made from an older source image.
+	private void removeStale(Path keep, String suffix) throws IOException {
+		try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "icon-*" + suffix)) {
+			for (Path p : ds) {
+				if (!p.equals(keep)) Files.deleteIfExists(p);
+			}
+		}
+	}
+
+	// First 128 bits of the source's SHA-256, in hex.
+	private static String hash(byte[] source) {
+		try {
+			byte[] d = MessageDigest.getInstance("SHA-256").digest(source);
+			StringBuilder sb = new StringBuilder(32);
+			for (int i = 0; i < 16; i++) sb.append(String.format("%02x", d[i]));
+			return sb.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e); // every JRE ships SHA-256
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package com.questify.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Supplier;
+
+// Monotonic timing of startup phases, from Main's entry to the first usable frame. Each phase is kept
+// as its start offset and duration, so phases that overlap on startup threads show up as such.
+// Recording is off until start() and stops at finish(), which appends one line per launch to the log:
+//   2026-10-18T09:30:00Z jvm=180 store.open=1+12 font=2+35 tasks.load=13+240 ... interactive=611
+// Entries are sorted by start: phases as start+duration, points as a single offset, in milliseconds
+// after main() began. "jvm" is the time from process start to main().
+public final class StartupTrace {
+	// The log starts over once it grows past this.
+	private static final long MAX_LOG_BYTES = 256 * 1024;
+
+	private static boolean recording = false;
+	private static long originNs;
+	private static Path logFile;
+	private static long jvmNs;
+	// Phase -> {start, end}; a point has no start.
+	private static final HashMap<String, long[]> phases = new HashMap<>();
+	private static final long POINT = Long.MIN_VALUE;
+
+	private StartupTrace() {}
+
+	// Begin recording; call first thing in main(). A null log means finish() only returns the line.
+	public static synchronized void start(Path log) {
+		originNs = System.nanoTime();
+		logFile = log;
+		recording = true;
+		phases.clear();
+		Optional<Instant> jvmStart = ProcessHandle.current().info().startInstant();
+		jvmNs = jvmStart.isPresent() ? Duration.between(jvmStart.get(), Instant.now()).toNanos() : -1;
+	}
+
+	// Run a phase and record how long it took; when not recording it just runs.
+	public static void run(String phase, Runnable body) {
+		long start = begin();
+		try {
+			body.run();
+		} finally {
+			end(phase, start);
+		}
+	}
+
+	// As run(), for a phase that returns a value.
+	public static <T> T call(String phase, Supplier<T> body) {
+		long start = begin();
+		try {
+			return body.get();
+		} finally {
+			end(phase, start);
+		}
+	}
+
+	// Wrap a startup stage so its run on whichever thread picks it up is timed.
+	public static <T> Supplier<T> timed(String phase, Supplier<T> stage) {
+		return () -> call(phase, stage);
+	}
+
+	// Record that a point was reached, e.g. the first frame painted; only the first time counts.
+	public static synchronized void mark(String phase) {
+		if (recording && !phases.containsKey(phase)) phases.put(phase, new long[] {POINT, System.nanoTime()});
+	}
+
+	// Mark the last phase, stop recording and append the launch's line to the log on a thread of its
+	// own, since this is called on the EDT. Returns the line, or null if nothing was being recorded.
+	public static String finish(String phase) {
+		String line;
+		Path log;
+		synchronized (StartupTrace.class) {
+			if (!recording) return null;
+			mark(phase);
+			recording = false;
+			line = format();
+			log = logFile;
+		}
+		if (log != null) new Thread(() -> append(log, line), "questify-startup-log").start();
+		return line;
+	}
+
+	// Start time of a phase, or POINT when not recording.
+	private static synchronized long begin() {
+		return recording ? System.nanoTime() : POINT;
+	}
+
+	private static synchronized void end(String phase, long startNs) {
+		if (recording && startNs != POINT) phases.put(phase, new long[] {startNs, System.nanoTime()});
+	}
+
+	private static String format() {
+		StringBuilder sb = new StringBuilder(Instant.now().toString());
+		if (jvmNs >= 0) sb.append(" jvm=").append(ms(jvmNs));
+		List<Map.Entry<String, long[]>> sorted = new ArrayList<>(phases.entrySet());
+		sorted.sort(Comparator.comparingLong(e -> e.getValue()[0] == POINT ? e.getValue()[1] : e.getValue()[0]));
+		for (Map.Entry<String, long[]> e : sorted) {
+			long[] t = e.getValue();
+			sb.append(' ').append(e.getKey()).append('=');
+			if (t[0] == POINT) {
+				sb.append(ms(t[1] - originNs));
+			} else {
+				sb.append(ms(t[0] - originNs)).append('+').append(ms(t[1] - t[0]));
+			}
+		}
+		return sb.toString();
+	}
+
+	private static long ms(long ns) {
+		return Math.round(ns / 1e6);
+	}
+
+	private static void append(Path log, String line) {
+		try {
+			Files.createDirectories(log.toAbsolutePath().getParent());
+			boolean full = Files.exists(log) && Files.size(log) > MAX_LOG_BYTES;
+			Files.write(log, (line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8),
+					StandardOpenOption.CREATE, full ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,69 @@
+package com.questify.util;
+
+import java.util.Arrays;
+
+// Packs canonical task ids (lowercase 36-char UUID strings) into two longs and back.
+public final class TaskIds {
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	// Digit value by ASCII char, -1 for anything that is not a lowercase hex digit.
+	private static final byte[] DIGITS = new byte[128];
+
+	static {
+		Arrays.fill(DIGITS, (byte) -1);
+		for (int i = 0; i < 16; i++) DIGITS[HEX[i]] = (byte) i;
+	}
+
+	private TaskIds() {}
+
+	// True if id is exactly the form UUID.toString() produces, so packing round-trips losslessly.
+	public static boolean isPackable(String id) {
+		if (id == null || id.length() != 36) return false;
+		if (id.charAt(8) != '-' || id.charAt(13) != '-' || id.charAt(18) != '-' || id.charAt(23) != '-') return false;
+		return (hex(id, 0, 8) | hex(id, 9, 13) | hex(id, 14, 18) | hex(id, 19, 23) | hex(id, 24, 36)) >= 0;
+	}
+
+	// Most significant 64 bits of a packable id.
+	public static long hi(String id) {
+		return (hex(id, 0, 8) << 32) | (hex(id, 9, 13) << 16) | hex(id, 14, 18);
+	}
+
+	// Least significant 64 bits of a packable id.
+	public static long lo(String id) {
+		return (hex(id, 19, 23) << 48) | hex(id, 24, 36);
+	}
+
+	public static String toString(long hi, long lo) {
+		char[] c = new char[36];
+		put(c, 0, hi >>> 32, 8);
+		c[8] = '-';
+		put(c, 9, hi >>> 16, 4);
+		c[13] = '-';
+		put(c, 14, hi, 4);
+		c[18] = '-';
+		put(c, 19, lo >>> 48, 4);
+		c[23] = '-';
+		put(c, 24, lo, 12);
+		return new String(c);
+	}
+
+	// Value of the lowercase hex digits in s[from, to), or -1 if any char is not one. Parsing ids is a
+	// large part of loading packed stores, so validation and parsing share one table lookup per char.
+	private static long hex(String s, int from, int to) {
+		long v = 0;
+		int bad = 0;
+		for (int i = from; i < to; i++) {
+			char c = s.charAt(i);
+			int d = c < 128 ? DIGITS[c] : -1;
+			bad |= d;
+			v = (v << 4) | (d & 0xF);
+		}
+		return bad < 0 ? -1 : v;
+	}
+
+	private static void put(char[] c, int at, long v, int digits) {
+		for (int i = digits - 1; i >= 0; i--) {
+			c[at + i] = HEX[(int) (v & 0xF)];
+			v >>>= 4;
+		}
+	}
+}
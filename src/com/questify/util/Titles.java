@@ -0,0 +1,23 @@
+package com.questify.util;
+
+import java.util.Locale;
+
+// Title normalization shared by the UI and tooling.
+public final class Titles {
+	private Titles() {}
+
+	// Normalize a title: trim, lowercase, then capitalize first char.
+	public static String format(String s) {
+        if (s == null) return "";
+        String trimmed = s.trim();
+        if (trimmed.isEmpty()) return trimmed;
+        String lower = trimmed.toLowerCase(Locale.getDefault());
+        return Character.toUpperCase(lower.charAt(0)) + lower.substring(1);
+    }
+
+	// Case- and whitespace-insensitive key used for prefix lookups and search.
+	public static String searchKey(String s) {
+		if (s == null) return "";
+		return s.trim().toLowerCase(Locale.ROOT);
+	}
+}
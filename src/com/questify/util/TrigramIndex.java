@@ -0,0 +1,313 @@
+package com.questify.util;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+// Substring index over task titles. Every title is split into trigrams of its search key, and each
+// trigram keeps a sorted list of the documents containing it, so a query intersects a few short
+// lists instead of scanning every title. Updates are incremental: a changed title becomes a new
+// document and the old one is tombstoned until enough garbage builds up to renumber. Renumbering is
+// built on a background thread from a snapshot and swapped in, so neither the edit that tips it over
+// (usually on the EDT) nor the searches and edits meanwhile wait for the rebuild.
+// Thread-safe; queries hold the lock only for the intersection.
+public final class TrigramIndex {
+
+	// A matching task and its title as last indexed.
+	public static final class Hit {
+		public final String id;
+		public final String title;
+
+		Hit(String id, String title) {
+			this.id = id;
+			this.title = title;
+		}
+	}
+
+	// Growable sorted int array of document numbers.
+	private static final class Postings {
+		int[] docs = new int[4];
+		int size;
+
+		void add(int doc) {
+			if (size == docs.length) docs = Arrays.copyOf(docs, size * 2);
+			docs[size++] = doc;
+		}
+	}
+
+	// Open-addressing trigram -> postings map; avoids boxing a Long for every trigram of every title.
+	private static final class PostingsMap {
+		long[] keys = new long[1024];
+		Postings[] vals = new Postings[1024];
+		int size;
+
+		Postings get(long key) {
+			int mask = keys.length - 1;
+			for (int i = slot(key, mask); vals[i] != null; i = (i + 1) & mask) {
+				if (keys[i] == key) return vals[i];
+			}
+			return null;
+		}
+
+		Postings getOrAdd(long key) {
+			int mask = keys.length - 1;
+			int i = slot(key, mask);
+			for (; vals[i] != null; i = (i + 1) & mask) {
+				if (keys[i] == key) return vals[i];
+			}
+			Postings p = new Postings();
+			keys[i] = key;
+			vals[i] = p;
+			if (++size * 2 > keys.length) grow();
+			return p;
+		}
+
+		void clear() {
+			Arrays.fill(vals, null);
+			size = 0;
+		}
+
+		private void grow() {
+			long[] oldKeys = keys;
+			Postings[] oldVals = vals;
+			keys = new long[oldKeys.length * 2];
+			vals = new Postings[oldVals.length * 2];
+			int mask = keys.length - 1;
+			for (int j = 0; j < oldVals.length; j++) {
+				if (oldVals[j] == null) continue;
+				int i = slot(oldKeys[j], mask);
+				while (vals[i] != null) i = (i + 1) & mask;
+				keys[i] = oldKeys[j];
+				vals[i] = oldVals[j];
+			}
+		}
+
+		private static int slot(long key, int mask) {
+			long h = key * 0x9E3779B97F4A7C15L;
+			return (int) (h >>> 32) & mask;
+		}
+	}
+
+	// Compact once tombstones outnumber live documents and this floor.
+	private static final int COMPACT_MIN_DEAD = 4096;
+	private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(r -> {
+		Thread t = new Thread(r, "questify-search-compactor");
+		t.setDaemon(true);
+		return t;
+	});
+
+	// Per-document arrays, indexed by document number; null entries are tombstones.
+	private String[] ids = new String[64];
+	private String[] titles = new String[64];
+	private String[] keys = new String[64];
+	private int docs = 0;
+	private int dead = 0;
+	private boolean compactQueued = false;
+	private int generation = 0; // bumped by clear(), which leaves a compaction in progress nothing to do
+
+	private HashMap<String, Integer> docOf = new HashMap<>();
+	private PostingsMap postings = new PostingsMap();
+
+	// Index a task's title, replacing what was indexed for the same id.
+	public synchronized void put(String id, String title) {
+		Integer old = docOf.get(id);
+		if (old != null) {
+			if (titles[old].equals(title)) return;
+			kill(old);
+		}
+		add(id, title);
+	}
+
+	// Index a task unless its id is already present; returns true if it was added.
+	public synchronized boolean putIfAbsent(String id, String title) {
+		if (docOf.containsKey(id)) return false;
+		add(id, title);
+		return true;
+	}
+
+	public synchronized void remove(String id) {
+		Integer doc = docOf.get(id);
+		if (doc == null) return;
+		kill(doc);
+	}
+
+	public synchronized void clear() {
+		Arrays.fill(ids, 0, docs, null);
+		Arrays.fill(titles, 0, docs, null);
+		Arrays.fill(keys, 0, docs, null);
+		docs = 0;
+		dead = 0;
+		generation++;
+		docOf.clear();
+		postings.clear();
+	}
+
+	public synchronized int size() {
+		return docOf.size();
+	}
+
+	// Tasks whose title contains query (case-insensitive), oldest-indexed first, at most limit of them.
+	public synchronized List<Hit> search(String query, int limit) {
+		String q = Titles.searchKey(query);
+		List<Hit> out = new ArrayList<>();
+		if (q.isEmpty() || limit <= 0) return out;
+		if (q.length() < 3) {
+			// Too short for a trigram, so every key is scanned under the lock; the UI debounces these.
+			for (int d = 0; d < docs && out.size() < limit; d++) {
+				if (keys[d] != null && keys[d].contains(q)) out.add(new Hit(ids[d], titles[d]));
+			}
+			return out;
+		}
+
+		List<Postings> lists = new ArrayList<>();
+		for (long g : trigrams(q)) {
+			Postings p = postings.get(g);
+			if (p == null) return out;
+			if (!lists.contains(p)) lists.add(p);
+		}
+		lists.sort(Comparator.comparingInt(p -> p.size));
+
+		// Walk the shortest list and seek every other one forward, stopping as soon as limit is met.
+		Postings first = lists.get(0);
+		int[] at = new int[lists.size()];
+		candidates:
+		for (int i = 0; i < first.size && out.size() < limit; i++) {
+			int d = first.docs[i];
+			for (int k = 1; k < at.length; k++) {
+				Postings p = lists.get(k);
+				at[k] = seek(p.docs, at[k], p.size, d);
+				if (at[k] == p.size) break candidates;
+				if (p.docs[at[k]] != d) continue candidates;
+			}
+			// Trigrams can match out of order, so confirm each candidate against its key.
+			if (keys[d] != null && keys[d].contains(q)) out.add(new Hit(ids[d], titles[d]));
+		}
+		return out;
+	}
+
+	private void add(String id, String title) {
+		if (docs == ids.length) {
+			int cap = docs * 2;
+			ids = Arrays.copyOf(ids, cap);
+			titles = Arrays.copyOf(titles, cap);
+			keys = Arrays.copyOf(keys, cap);
+		}
+		int d = docs++;
+		String key = Titles.searchKey(title);
+		ids[d] = id;
+		titles[d] = title;
+		keys[d] = key.equals(title) ? title : key;
+		docOf.put(id, d);
+		index(postings, key, d);
+	}
+
+	private static void index(PostingsMap postings, String key, int d) {
+		for (int i = 0; i + 3 <= key.length(); i++) {
+			Postings p = postings.getOrAdd(trigram(key, i));
+			// Documents are added in increasing order, so a repeated trigram shows up as the last entry.
+			if (p.size == 0 || p.docs[p.size - 1] != d) p.add(d);
+		}
+	}
+
+	// Tombstone a document; its postings are dropped at the next compaction, queued here once the
+	// tombstones cross the threshold, whether from a remove or a put that replaced a title.
+	private void kill(int doc) {
+		docOf.remove(ids[doc]);
+		ids[doc] = null;
+		titles[doc] = null;
+		keys[doc] = null;
+		dead++;
+		if (!compactQueued && dead > COMPACT_MIN_DEAD && dead > docs - dead) {
+			compactQueued = true;
+			COMPACTOR.execute(this::compactNow);
+		}
+	}
+
+	// Renumber live documents densely and rebuild every postings list without tombstones. The new arrays
+	// and postings are built from a snapshot outside the lock; holding it again, documents removed since
+	// the snapshot are tombstoned in the new numbering and those added since are indexed on top, which
+	// costs a pass over the ids rather than a rebuild.
+	private void compactNow() {
+		String[] snapIds, snapKeys, snapTitles;
+		int gen, cap = 64;
+		synchronized (this) {
+			compactQueued = false;
+			// A clear() since queuing may have removed the garbage already.
+			if (dead <= COMPACT_MIN_DEAD || dead <= docs - dead) return;
+			snapIds = Arrays.copyOf(ids, docs);
+			snapTitles = Arrays.copyOf(titles, docs);
+			snapKeys = Arrays.copyOf(keys, docs);
+			gen = generation;
+			while (cap < docs - dead) cap *= 2;
+		}
+		int[] renum = new int[snapIds.length];
+		String[] newIds = new String[cap];
+		String[] newTitles = new String[cap];
+		String[] newKeys = new String[cap];
+		HashMap<String, Integer> newDocOf = new HashMap<>(cap * 2);
+		PostingsMap newPostings = new PostingsMap();
+		int live = 0;
+		for (int d = 0; d < snapIds.length; d++) {
+			if (snapIds[d] == null) {
+				renum[d] = -1;
+				continue;
+			}
+			renum[d] = live;
+			newIds[live] = snapIds[d];
+			newTitles[live] = snapTitles[d];
+			newKeys[live] = snapKeys[d];
+			newDocOf.put(snapIds[d], live);
+			index(newPostings, snapKeys[d], live);
+			live++;
+		}
+
+		synchronized (this) {
+			if (generation != gen) return;
+			String[] oldIds = ids;
+			String[] oldTitles = titles;
+			int oldDocs = docs;
+			ids = newIds;
+			titles = newTitles;
+			keys = newKeys;
+			docs = live;
+			dead = 0;
+			docOf = newDocOf;
+			postings = newPostings;
+			// Removals first: a title changed since then is a removal plus an add under the same id.
+			for (int d = 0; d < snapIds.length; d++) {
+				if (snapIds[d] != null && oldIds[d] == null) kill(renum[d]);
+			}
+			for (int d = snapIds.length; d < oldDocs; d++) {
+				if (oldIds[d] != null) add(oldIds[d], oldTitles[d]);
+			}
+		}
+	}
+
+	// First index in a[from, to) holding a value >= v: gallop forward, then binary search the last step.
+	private static int seek(int[] a, int from, int to, int v) {
+		int step = 1;
+		int hi = from;
+		while (hi < to && a[hi] < v) {
+			from = hi + 1;
+			hi += step;
+			step <<= 1;
+		}
+		int lo = from;
+		hi = Math.min(hi, to);
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (a[mid] < v) lo = mid + 1;
+			else hi = mid;
+		}
+		return lo;
+	}
+
+	private static long[] trigrams(String key) {
+		long[] out = new long[key.length() - 2];
+		for (int i = 0; i < out.length; i++) out[i] = trigram(key, i);
+		return out;
+	}
+
+	private static long trigram(String s, int i) {
+		return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+	}
+}
@@ -0,0 +1,137 @@
+package com.questify.util;
+
+import java.util.concurrent.*;
+
+// Debounced write-behind on one background thread, shared by the stores that save from the EDT without
+// waiting for the disk. submit() hands over a snapshot that replaces any not yet written; the write runs
+// once no newer one has come for the delay, or after MAX_DELAY_FACTOR delays of steady submits. Writes,
+// flushes and execute() all run on that one thread, so writes never overlap and an older snapshot can
+// never land after a newer one. A snapshot whose write fails stays pending, unless a newer one replaced
+// it, and the next flush() retries it.
+public final class WriteBehind<T> {
+	public static final long DEFAULT_DELAY_MS = 200;
+	// Longest a submitted snapshot waits, in delays, while newer ones keep arriving.
+	private static final int MAX_DELAY_FACTOR = 10;
+
+	// Writes a snapshot; throwing keeps it pending.
+	public interface Sink<T> {
+		void write(T snapshot) throws Exception;
+	}
+
+	private final long delayNs;
+	private final Sink<T> sink;
+	private final ScheduledThreadPoolExecutor writer;
+
+	private T pending;
+	private boolean requested = false; // a write is due, with pending as its snapshot
+	private boolean writing = false;
+	private long seq = 0;
+	private long savedSeq = 0;
+	private long firstRequestNanos;   // when the oldest unwritten request was made
+	private ScheduledFuture<?> scheduled;
+
+	public WriteBehind(String threadName, long delayMs, Sink<T> sink) {
+		this.delayNs = TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMs));
+		this.sink = sink;
+		this.writer = new ScheduledThreadPoolExecutor(1, r -> {
+			Thread t = new Thread(r, threadName);
+			t.setDaemon(true);
+			return t;
+		});
+		// Every submit in a burst cancels the previous drain; drop those from the queue right away.
+		writer.setRemoveOnCancelPolicy(true);
+	}
+
+	// Queue a snapshot in place of any not yet written. The caller hands it over and must not change it.
+	// After close() it is kept but never written.
+	public synchronized void submit(T snapshot) {
+		pending = snapshot;
+		request();
+	}
+
+	// Ask for a write without a new snapshot, for owners that keep what is unwritten themselves; the sink
+	// then gets whatever was last submitted, or null.
+	public synchronized void request() {
+		long now = System.nanoTime();
+		if (!requested) firstRequestNanos = now;
+		requested = true;
+		seq++;
+		if (scheduled != null) scheduled.cancel(false);
+		long waitNs = Math.min(delayNs, firstRequestNanos + delayNs * MAX_DELAY_FACTOR - now);
+		try {
+			scheduled = writer.schedule(this::drain, Math.max(0, waitNs), TimeUnit.NANOSECONDS);
+		} catch (RejectedExecutionException e) {
+			scheduled = null;
+			e.printStackTrace();
+		}
+	}
+
+	// Run a task on the writer thread after everything queued before it; throws
+	// RejectedExecutionException after close().
+	public void execute(Runnable task) {
+		writer.execute(task);
+	}
+
+	// Write any pending snapshot now and wait for it and everything queued before it.
+	public void flush() {
+		synchronized (this) {
+			if (scheduled != null) scheduled.cancel(false);
+			scheduled = null;
+		}
+		try {
+			writer.submit(this::drain).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException | RejectedExecutionException e) {
+			e.printStackTrace();
+		}
+	}
+
+	// Flush, then stop the writer thread.
+	public void close() {
+		flush();
+		writer.shutdown();
+	}
+
+	// Whether something submitted or requested is not on disk yet, counting a write in progress.
+	public synchronized boolean hasUnsaved() {
+		return requested || writing;
+	}
+
+	// Sequence number of the newest submit or request whose write succeeded.
+	public synchronized long getSavedSeq() {
+		return savedSeq;
+	}
+
+	// Runs only on the writer thread.
+	private void drain() {
+		T snapshot;
+		long snapSeq;
+		synchronized (this) {
+			if (!requested) return;
+			snapshot = pending;
+			snapSeq = seq;
+			pending = null;
+			requested = false;
+			writing = true;
+		}
+		try {
+			sink.write(snapshot);
+			synchronized (this) {
+				savedSeq = snapSeq;
+			}
+		} catch (Exception e) {
+			e.printStackTrace();
+			synchronized (this) {
+				if (!requested) {
+					pending = snapshot;
+					requested = true;
+				}
+			}
+		} finally {
+			synchronized (this) {
+				writing = false;
+			}
+		}
+	}
+}
@@ -1,3 +1,4 @@
 module Questify {
 	requires java.desktop;
+	requires jdk.jfr;
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.questify.ui;
+
+import com.questify.model.Task;
+
+import javax.swing.JList;
+import javax.swing.SwingUtilities;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.util.*;
+
+// Checks that TaskListModel's bulk events keep a JList's selection on the right rows. Plain main, no
+// framework; exits non-zero on the first failure.
+public final class TaskListModelTest {
+	private TaskListModelTest() {}
+
+	public static void main(String[] args) throws Exception {
+		SwingUtilities.invokeAndWait(() -> {
+			removeAllKeepsSelectionOnRemainingRows();
+			removeAllPastRunLimitClearsSelection();
+			replaceAllKeepsSelectionInRange();
+			indexOfIdAfterRemovals();
+		});
+		System.out.println("TaskListModelTest: all passed");
+	}
+
+	private static void removeAllKeepsSelectionOnRemainingRows() {
+		TaskListModel model = model(10);
+		JList<Task> list = new JList<>(model);
+		list.setSelectedIndices(new int[] {3, 7, 9});
+		List<ListDataEvent> events = record(model);
+		int[] selectionEvents = {0};
+		list.addListSelectionListener(e -> selectionEvents[0]++);
+
+		model.removeAll(List.of("t1", "t2", "t5", "t8", "t9"));
+
+		check(events.size() == 3, "one event per removed run, got " + events.size());
+		check(events.get(0).getIndex0() == 8 && events.get(0).getIndex1() == 9, "last run first");
+		check(ids(list.getSelectedValuesList()).equals(List.of("t3", "t7")), "selection " + ids(list.getSelectedValuesList()));
+		check(selectionEvents[0] > 0, "selection listener told of the shift");
+		check(ids(model.toList()).equals(List.of("t0", "t3", "t4", "t6", "t7")), "rows " + ids(model.toList()));
+	}
+
+	private static void removeAllPastRunLimitClearsSelection() {
+		int n = 4 * TaskListModel.MAX_RUN_EVENTS;
+		TaskListModel model = model(n);
+		JList<Task> list = new JList<>(model);
+		list.setSelectedIndex(1);
+		List<ListDataEvent> events = record(model);
+		Set<String> even = new HashSet<>();
+		for (int i = 0; i < n; i += 2) even.add("t" + i);
+
+		model.removeAll(even);
+
+		check(events.size() == 2, "reset reported as removal plus add, got " + events.size());
+		check(list.isSelectionEmpty(), "selection cleared with the reset");
+		check(model.getSize() == n / 2 && model.get(0).getId().equals("t1"), "rows after reset");
+	}
+
+	private static void replaceAllKeepsSelectionInRange() {
+		TaskListModel model = model(10);
+		JList<Task> list = new JList<>(model);
+		list.setSelectedIndex(9);
+		model.replaceAll(model(4).toList());
+		check(list.getMaxSelectionIndex() < model.getSize(), "selection past the end: " + list.getMaxSelectionIndex());
+	}
+
+	private static void indexOfIdAfterRemovals() {
+		TaskListModel model = model(10);
+		model.remove(0);
+		model.removeAll(Set.of("t4"));
+		for (int i = 0; i < model.getSize(); i++) {
+			check(model.indexOfId(model.get(i).getId()) == i, "indexOfId of row " + i);
+		}
+		check(model.indexOfId("t0") < 0 && model.indexOfId("t4") < 0, "removed ids not found");
+	}
+
+	private static TaskListModel model(int n) {
+		TaskListModel m = new TaskListModel();
+		List<Task> tasks = new ArrayList<>();
+		for (int i = 0; i < n; i++) tasks.add(new Task("t" + i, "Task " + i, false));
+		m.addAll(tasks);
+		return m;
+	}
+
+	private static List<ListDataEvent> record(TaskListModel model) {
+		List<ListDataEvent> events = new ArrayList<>();
+		model.addListDataListener(new ListDataListener() {
+			public void intervalAdded(ListDataEvent e) { events.add(e); }
+			public void intervalRemoved(ListDataEvent e) { events.add(e); }
+			public void contentsChanged(ListDataEvent e) { events.add(e); }
+		});
+		return events;
+	}
+
+	private static List<String> ids(List<Task> tasks) {
+		List<String> out = new ArrayList<>();
+		for (Task t : tasks) out.add(t.getId());
+		return out;
+	}
+
+	private static void check(boolean ok, String what) {
+		if (!ok) {
+			System.err.println("FAILED: " + what);
+			System.exit(1);
+		}
+	}
+}